@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal benchmark harness: warms an operation up, then times it for a fixed period and
+ * reports the time per operation and the bytes allocated per operation (the same figure the
+ * JMH GC profiler reports as {@code gc.alloc.rate.norm}).
+ */
+public class BenchmarkRunner {
+
+    private final long warmupMillis;
+    private final long measureMillis;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // Stops the JIT from removing benchmark bodies whose results are unused
+    private long blackhole;
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupMillis  how long to run each benchmark before measuring
+     * @param measureMillis how long to measure each benchmark
+     */
+    public BenchmarkRunner(long warmupMillis, long measureMillis) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+    }
+
+    /**
+     * An operation being benchmarked. The returned value is consumed so the work cannot be
+     * optimised away.
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @return any value derived from the work done
+         */
+        long run();
+    }
+
+    /**
+     * Prints the column headers for {@link #measure(String, String, Operation)}.
+     */
+    public static void printHeader() {
+        System.out.printf("%-28s %-14s %14s %16s %14s %12s%n",
+                "Benchmark", "Params", "ns/op", "ops/s", "B/op", "MB/s alloc");
+    }
+
+    /**
+     * Warms up and measures an operation, printing one result line.
+     *
+     * @param name      the benchmark name
+     * @param params    a description of the parameters
+     * @param operation the operation to time
+     */
+    public void measure(String name, String params, Operation operation) {
+        loop(operation, warmupMillis);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long ops = loop(operation, measureMillis);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-28s %-14s %14.1f %16.0f %14.1f %12.1f%n",
+                name, params,
+                (double) elapsed / ops,
+                ops * 1e9 / elapsed,
+                (double) allocated / ops,
+                allocated / 1048576.0 / (elapsed / 1e9));
+    }
+
+    /**
+     * Runs the operation repeatedly for the given time.
+     *
+     * @return the number of operations run
+     */
+    private long loop(Operation operation, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long ops = 0;
+        do {
+            // Check the clock in batches so timing overhead stays small
+            for (int i = 0; i < 64; i++) {
+                blackhole ^= operation.run();
+            }
+            ops += 64;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    /**
+     * @return the combined results of every operation run, so they are not dead code
+     */
+    public long getBlackhole() {
+        return blackhole;
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import boardengine.Board;
+import boardengine.Space;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Regression benchmark for {@link Board#getSpace(int, int)} lookups that fall off the board.
+ * Measures the bytes allocated by the current thread across many lookups and fails if any
+ * allocation is attributed to them.
+ */
+public class BoardLookupBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 1_000_000;
+
+    /**
+     * Entry point of the benchmark.
+     *
+     * @param args optional board size (defaults to 5)
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Board board = new Board(size, size);
+
+        // Warm up so that class loading and JIT compilation are not measured
+        lookupRing(board, size, WARMUP_ROUNDS);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int hits = lookupRing(board, size, MEASURED_ROUNDS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        long lookups = (long) MEASURED_ROUNDS * ringSize(size);
+        System.out.printf("Off-board lookups: %d (%d ocean)%n", lookups, hits);
+        System.out.printf("Time per lookup:   %.2f ns%n", (double) elapsed / lookups);
+        System.out.printf("Bytes per lookup:  %.4f%n", (double) allocated / lookups);
+
+        // Any per-lookup allocation would cost at least one object header (16 bytes) per call,
+        // so anything below a byte per lookup is measurement overhead rather than the lookups
+        if (allocated >= lookups) {
+            System.out.println("FAIL: off-board lookups allocated " + allocated + " bytes");
+            System.exit(1);
+        }
+        System.out.println("PASS: off-board lookups are allocation free");
+    }
+
+    /**
+     * Looks up every cell in the ring just outside the ocean padding.
+     */
+    private static int lookupRing(Board board, int size, int rounds) {
+        int hits = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = -2; i <= size + 1; i++) {
+                hits += count(board.getSpace(-2, i));
+                hits += count(board.getSpace(size + 1, i));
+                hits += count(board.getSpace(i, -2));
+                hits += count(board.getSpace(i, size + 1));
+            }
+        }
+        return hits;
+    }
+
+    private static int count(Space space) {
+        return space.isTraversable() ? 0 : 1;
+    }
+
+    private static int ringSize(int size) {
+        return 4 * (size + 4);
+    }
+}
@@ -0,0 +1,269 @@
+package benchmarks;
+
+import actions.Action;
+import actions.BuildAction;
+import actions.MoveAction;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import gameengine.Game;
+import pieces.PieceRegistry;
+import pieces.Worker;
+import playerelements.Player;
+import playerelements.gods.God;
+import playerelements.gods.GodPower;
+import playerelements.gods.GodRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmarks for the hot paths of the rules engine, parameterised by board size and player
+ * count. Run before and after an engine change to compare the numbers.
+ * <p>
+ * Usage: {@code EngineBenchmarks [--sizes 5,7] [--players 2,3] [--warmup ms] [--measure ms] [--filter name]}
+ */
+public class EngineBenchmarks {
+
+    private static final long SEED = 42L;
+
+    /**
+     * Entry point of the benchmarks.
+     *
+     * @param args see the class description
+     */
+    public static void main(String[] args) {
+        int[] sizes = {5, 7};
+        int[] playerCounts = {2, 3};
+        long warmup = 1_000;
+        long measure = 2_000;
+        String filter = "";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes" -> sizes = parseList(args[i + 1]);
+                case "--players" -> playerCounts = parseList(args[i + 1]);
+                case "--warmup" -> warmup = Long.parseLong(args[i + 1]);
+                case "--measure" -> measure = Long.parseLong(args[i + 1]);
+                case "--filter" -> filter = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, measure);
+        BenchmarkRunner.printHeader();
+        for (int size : sizes) {
+            for (int players : playerCounts) {
+                runAll(runner, size, players, filter);
+            }
+        }
+        System.out.println("(checksum " + runner.getBlackhole() + ")");
+    }
+
+    /**
+     * Runs every benchmark for one board size and player count.
+     */
+    private static void runAll(BenchmarkRunner runner, int size, int playerCount, String filter) {
+        String params = size + "x" + size + " " + playerCount + "p";
+        Board board = new Board(size, size);
+        Game game = new Game(board, playerCount);
+        Worker worker = game.getCurrentPlayer().getWorkers()[0];
+        scatterBuilds(board, new Random(SEED), size * size / 2);
+        Random random = new Random(SEED);
+
+        if ("BoardConstruction".contains(filter)) {
+            runner.measure("BoardConstruction", params, () -> new Board(size, size).getDimensions().size());
+        }
+        if ("BoardTemplateCompile".contains(filter)) {
+            char[][] layout = new char[size][size];
+            for (char[] row : layout) Arrays.fill(row, '.');
+            runner.measure("BoardTemplateCompile", params, () -> new BoardTemplate("bench", layout).rows);
+        }
+        if ("getMoveActions".contains(filter)) {
+            runner.measure("getMoveActions", params, () -> worker.getMoveActions(board).size());
+        }
+        if ("getLegalMoveCells".contains(filter)) {
+            int[] cells = new int[Board.MAX_NEIGHBOURS];
+            runner.measure("getLegalMoveCells", params, () -> worker.getLegalMoveCells(board, cells));
+        }
+        if ("getBuildActions".contains(filter)) {
+            runner.measure("getBuildActions", params, () -> worker.getBuildActions(board).size());
+        }
+        if ("getMoveValidity".contains(filter)) {
+            // Validity checks for every worker, as a move generator would run them
+            runner.measure("getMoveValidity", params, () -> {
+                long valid = 0;
+                for (Player player : game.getPlayers()) {
+                    for (Worker w : player.getWorkers()) {
+                        for (MoveAction move : w.getMoveActions(board)) {
+                            if (move.isValid()) valid++;
+                        }
+                    }
+                }
+                return valid;
+            });
+        }
+        if ("getAvailableGround".contains(filter)) {
+            runner.measure("getAvailableGround", params, () -> game.getAvailableGround().size());
+        }
+        if ("randomPlayout".contains(filter)) {
+            runner.measure("randomPlayout", params, () -> randomPlayout(board, game.getPlayers(), random));
+        }
+        if ("randomPlayoutLean".contains(filter)) {
+            runner.measure("randomPlayoutLean", params, () -> randomPlayoutLean(board, game.getPlayers(), random));
+        }
+        if ("godActionsVirtual".contains(filter) || "godActionsCompiled".contains(filter)) {
+            runGodActions(runner, params, board, game.getCurrentPlayer(), filter);
+        }
+    }
+
+    /**
+     * Asks Artemis for her second moves after each worker has moved once, once through the
+     * hand-written {@link LegacyArtemis} subclass the game used before gods were registered and
+     * once through the compiled {@link GodPower} hooks that Perft uses.
+     */
+    private static void runGodActions(BenchmarkRunner runner, String params, Board board, Player player, String filter) {
+        int mark = board.getUndoDepth();
+        Worker[] workers = player.getWorkers();
+        int[] cells = new int[Board.MAX_NEIGHBOURS];
+        for (Worker worker : workers) {
+            worker.resetHistory();
+            if (worker.getLegalMoveCells(board, cells) == 0) continue;
+            worker.applyTurn(worker.createMove(board, cells[0]));
+        }
+
+        God legacy = new LegacyArtemis();
+        GodPower power = GodRegistry.getPower("Artemis");
+
+        if ("godActionsVirtual".contains(filter)) {
+            runner.measure("godActionsVirtual", params, () -> {
+                long actions = 0;
+                for (Worker worker : workers) {
+                    if (!legacy.godCondition(worker)) continue;
+                    for (Action action : legacy.generateGodActions(worker, board)) {
+                        if (action.isValid()) actions++;
+                    }
+                }
+                return actions;
+            });
+        }
+        if ("godActionsCompiled".contains(filter)) {
+            runner.measure("godActionsCompiled", params, () -> {
+                long actions = 0;
+                for (Worker worker : workers) {
+                    if (!power.canMoveAgain(worker)) continue;
+                    for (MoveAction move : worker.getMoveActions(board)) {
+                        if (move.isValid() && power.allowsExtraMove(worker, move)) actions++;
+                    }
+                }
+                return actions;
+            });
+        }
+
+        board.undoTo(mark);
+        for (Worker worker : workers) {
+            worker.resetHistory();
+        }
+    }
+
+    /**
+     * Plays random legal turns until a player wins or cannot move, then undoes the playout.
+     *
+     * @return the number of turns played
+     */
+    private static long randomPlayout(Board board, Player[] players, Random random) {
+        int mark = board.getUndoDepth();
+        long turns = 0;
+        ArrayList<MoveAction> moves = new ArrayList<>();
+        ArrayList<BuildAction> builds = new ArrayList<>();
+
+        for (int toMove = 0; ; toMove = (toMove + 1) % players.length) {
+            moves.clear();
+            for (Worker w : players[toMove].getWorkers()) {
+                for (MoveAction move : w.getMoveActions(board)) {
+                    if (move.isValid()) moves.add(move);
+                }
+            }
+            if (moves.isEmpty()) break;
+
+            MoveAction move = moves.get(random.nextInt(moves.size()));
+            move.apply(board);
+            turns++;
+            if (move.isWinCondition()) break;
+
+            builds.clear();
+            for (BuildAction build : move.getWorker().getBuildActions(board)) {
+                if (build.isValid()) builds.add(build);
+            }
+            if (builds.isEmpty()) break;
+            builds.get(random.nextInt(builds.size())).apply(board);
+        }
+
+        board.undoTo(mark);
+        return turns;
+    }
+
+    /**
+     * Same as {@link #randomPlayout(Board, Player[], Random)}, but only creates the actions that
+     * are actually played.
+     *
+     * @return the number of turns played
+     */
+    private static long randomPlayoutLean(Board board, Player[] players, Random random) {
+        int mark = board.getUndoDepth();
+        long turns = 0;
+        int[] cells = new int[Board.MAX_NEIGHBOURS];
+        int[] moveCounts = new int[2];
+
+        for (int toMove = 0; ; toMove = (toMove + 1) % players.length) {
+            Worker[] workers = players[toMove].getWorkers();
+            int total = 0;
+            for (int w = 0; w < workers.length; w++) {
+                moveCounts[w] = workers[w].getLegalMoveCells(board, cells);
+                total += moveCounts[w];
+            }
+            if (total == 0) break;
+
+            // Pick a move uniformly across both workers
+            int pick = random.nextInt(total);
+            Worker worker = pick < moveCounts[0] ? workers[0] : workers[1];
+            if (worker == workers[1]) pick -= moveCounts[0];
+            worker.getLegalMoveCells(board, cells);
+            MoveAction move = worker.createMove(board, cells[pick]);
+            move.apply(board);
+            turns++;
+            if (move.isWinCondition()) break;
+
+            int builds = worker.getLegalBuildCells(board, cells);
+            if (builds == 0) break;
+            worker.createBuild(board, cells[random.nextInt(builds)]).apply(board);
+        }
+
+        board.undoTo(mark);
+        return turns;
+    }
+
+    /**
+     * Builds on random empty cells so the benchmark positions have some height variety.
+     */
+    private static void scatterBuilds(Board board, Random random, int builds) {
+        int rows = board.getDimensions().row;
+        int cols = board.getDimensions().col;
+        for (int i = 0; i < builds; i++) {
+            int row = random.nextInt(rows);
+            int col = random.nextInt(cols);
+            if (board.getSpace(row, col).hasWorker() || board.getSpace(row, col).getHeight() >= 2) continue;
+            int height = board.getSpace(row, col).getHeight();
+            board.buildPiece(PieceRegistry.tower(height + 1), board.getCoordinate(row, col));
+        }
+    }
+
+    private static int[] parseList(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
@@ -1,20 +1,22 @@
-package playerelements.gods;
+package benchmarks;
 
 import actions.Action;
-import actions.EndTurnAction;
+import actions.InvalidReason;
 import actions.MoveAction;
 import boardengine.Board;
 import gameengine.GamePhase;
 import pieces.Worker;
 import playerelements.History;
+import playerelements.gods.God;
 
 import java.util.ArrayList;
 
 /**
- * Artemis allows a worker to move twice in one turn,
- * but the second move cannot return to the space the worker started from.
+ * Artemis as it was written before gods were declared in the
+ * {@link playerelements.gods.GodRegistry}: a hand-written {@link God} subclass that reads the
+ * worker's history. Kept only as the baseline of the {@code godActions} benchmarks.
  */
-public class Artemis extends God {
+public class LegacyArtemis extends God {
 
     /**
      * Generates Artemis's special move actions.
@@ -35,7 +37,7 @@ public class Artemis extends God {
         for (MoveAction moveAction : moveActions) {
             // Can't move back to where the worker came from
             if (moveAction.getMoveEnd() == prev.getMoveStart()) {
-                moveAction.setAsInvalid("");
+                moveAction.setAsInvalid(InvalidReason.GOD_POWER_RESTRICTION);
             }
             allActions.add(moveAction);
         }
@@ -0,0 +1,136 @@
+package benchmarks;
+
+import gameengine.SaveFile;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+/**
+ * Round-trip check for {@link SaveFile}, built from the sample save. The sample is loaded,
+ * written, read back and written again: both reads must give the same position and both writes
+ * the same text, and every line of the sample must survive. The same is checked for the sample
+ * saved part way through a turn, and broken saves must be rejected with an {@link IOException}.
+ * Finishes by timing how fast the sample loads. Exits with a non-zero code on any failure.
+ */
+public class SaveFileRoundTrip {
+
+    private static final int LOADS = 10_000;
+
+    // Lines that must each make the sample fail to load when appended to its pieces section
+    private static final String[] BROKEN_PIECES = {"5 1 1", "4D 2 2", "2D 2 2", "0 2 2", "1 1 1", "1 9 9"};
+
+    // Pairs of sample text and its broken replacement, each of which must make the sample fail to load
+    private static final String[][] BROKEN_LINES = {
+            {"Players=2\n", "Players=2\nPhase=PLACE\n"},
+            {"Players=2\n", "Players=2\nPhase=BUILD\n"},
+            {"Players=2\n", "Players=2\nCurrentPlayer=5\n"},
+            {"Players=2\n", "Players=-1\n"},
+            {"Players=2\n", "Players=9\n"},
+            {"w 0 1\n", "w 1\n"},
+            {"Player0 Artemis", "Player0 Artimis"},
+            {"donut.map", "0x5"},
+            {"donut.map", "broken.map"},
+    };
+
+    // Added after the Players= line to save the sample part way through player 0's turn
+    private static final String MID_TURN = "CurrentPlayer=0\nPhase=BUILD\nTimersMs=1500,2500\n"
+            + "Turn=W 1 0 1\nTurnBuilds=1 1 1\nGodPowerActive=true\n";
+
+    private static boolean ok = true;
+
+    /**
+     * Entry point of the check.
+     *
+     * @param args optional path of the sample save (defaults to savefiles/DebugTowers.save)
+     * @throws IOException if the sample cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        File sample = new File(args.length > 0 ? args[0] : "savefiles/DebugTowers.save");
+        File directory = sample.getAbsoluteFile().getParentFile();
+        String text = Files.readString(sample.toPath());
+
+        SaveFile.SavedGame loaded = SaveFile.load(sample);
+        String written = write(loaded);
+        SaveFile.SavedGame reread = read(written, directory);
+        String rewritten = write(reread);
+
+        check("position key survives a round trip",
+                loaded.game.getPositionKey() == reread.game.getPositionKey());
+        check("written text is stable", written.equals(rewritten));
+        check("phase survives a round trip", loaded.phase == reread.phase);
+        for (String line : text.split("\n")) {
+            line = line.trim();
+            if (!line.isEmpty()) check("sample line '" + line + "' is written back", written.contains(line + "\n"));
+        }
+
+        for (String broken : BROKEN_PIECES) {
+            try {
+                read(text.trim() + "\n" + broken + "\n", directory);
+                check("pieces line '" + broken + "' is rejected", false);
+            } catch (IOException e) {
+                check("pieces line '" + broken + "' is rejected", true);
+            }
+        }
+
+        File brokenMap = new File(directory, "broken.map");
+        Files.writeString(brokenMap.toPath(), "5 5\n.....\n..\n");
+        try {
+            for (String[] broken : BROKEN_LINES) {
+                String name = "'" + broken[1].trim().replace("\n", " ") + "' is rejected";
+                try {
+                    read(text.replaceFirst(broken[0], broken[1]), directory);
+                    check(name, false);
+                } catch (IOException e) {
+                    check(name, true);
+                } catch (RuntimeException e) {
+                    check(name + " without " + e, false);
+                }
+            }
+        } finally {
+            Files.delete(brokenMap.toPath());
+        }
+
+        String midTurn = text.replaceFirst("Players=2\n", "Players=2\n" + MID_TURN);
+        check("sample can be saved part way through a turn", !midTurn.equals(text));
+        SaveFile.SavedGame resumed = read(midTurn, directory);
+        String resumedText = write(resumed);
+        check("part way through a turn text is stable", resumedText.equals(write(read(resumedText, directory))));
+        for (String line : MID_TURN.split("\n")) {
+            check("turn line '" + line + "' is written back", resumedText.contains(line + "\n"));
+        }
+
+        long start = System.nanoTime();
+        long keys = 0;
+        for (int i = 0; i < LOADS; i++) {
+            keys += read(text, directory).game.getPositionKey();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Loaded the sample %d times: %.1f us per game (checksum %d)%n",
+                LOADS, elapsed / 1e3 / LOADS, keys);
+
+        if (!ok) {
+            System.out.println("FAIL: save files do not round trip");
+            System.exit(1);
+        }
+        System.out.println("PASS: save files round trip");
+    }
+
+    private static String write(SaveFile.SavedGame saved) throws IOException {
+        StringWriter out = new StringWriter();
+        SaveFile.write(out, saved.game, saved.phase, saved.godPowerActive, saved.remainingMillis);
+        return out.toString();
+    }
+
+    private static SaveFile.SavedGame read(String text, File directory) throws IOException {
+        return SaveFile.read(new BufferedReader(new StringReader(text)), directory);
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) System.out.println("FAIL: " + name);
+        ok &= passed;
+    }
+}
@@ -1,6 +1,7 @@
 package actions;
 
 import boardengine.Board;
+import boardengine.Reversible;
 import pieces.Worker;
 import playerelements.History;
 
@@ -9,7 +10,7 @@ import playerelements.History;
  * Base class for Actions. It represents the actions a worker or player can do
  *
  */
-public abstract class Action {
+public abstract class Action implements Reversible {
     protected Worker worker;
     // Public
 
@@ -34,6 +35,25 @@ public abstract class Action {
      */
     public abstract void processAction(Board board);
 
+    /**
+     * Processes the action and records it on the board's undo journal, so that it can be
+     * taken back with {@link Board#undo()}. Used to explore moves without copying the board.
+     *
+     * @param board the board to apply the action to
+     */
+    public void apply(Board board) {
+        processAction(board);
+        board.recordChange(this);
+    }
+
+    /**
+     * Abstract method to undo the outcome of {@link #processAction(Board)} on the board
+     *
+     * @param board the board the action was processed on
+     */
+    @Override
+    public abstract void revert(Board board);
+
 
     /**
      * Getter to get worker performing action
@@ -97,6 +117,28 @@ public abstract class Action {
         validString = invalidReason;
     }
 
+    /**
+     * Sets an action as Invalid for the given reason. The reason's text is only
+     * built if {@link #getValidString()} is called.
+     *
+     * @param reason why the action is invalid
+     */
+    public void setAsInvalid(InvalidReason reason){
+        validAction = false;
+        invalidReasons |= reason.mask();
+    }
+
+    /**
+     * Sets an action as Invalid for a reason that names a piece.
+     *
+     * @param reason  why the action is invalid
+     * @param subject the name of the piece the reason refers to
+     */
+    public void setAsInvalid(InvalidReason reason, String subject){
+        setAsInvalid(reason);
+        invalidSubject = subject;
+    }
+
     /**
      * Sets ana action as Valid and possible
      *
@@ -104,6 +146,7 @@ public abstract class Action {
      */
     public void setAsValid(String ValidReason){
         validAction = true;
+        invalidReasons = 0;
         validString = ValidReason;
     }
 
@@ -117,12 +160,49 @@ public abstract class Action {
     }
 
     /**
-     * Gets the String
+     * Gets the reasons this action is invalid as a bitmask of {@link InvalidReason#mask()} values
+     *
+     * @return the reason mask, 0 if no reason was recorded
+     */
+    public int getInvalidReasons(){
+        return invalidReasons;
+    }
+
+    /**
+     * Checks whether the action was marked invalid for the given reason
+     *
+     * @param reason the reason to check
+     * @return true if the reason applies
+     */
+    public boolean hasInvalidReason(InvalidReason reason){
+        return (invalidReasons & reason.mask()) != 0;
+    }
+
+    /**
+     * Gets the String. For invalid actions the text is built from the recorded reasons.
      *
      * @return A String
      */
     public String getValidString(){
-        return validString;
+        if (validString != null) return validString;
+        if (validAction || invalidReasons == 0) return DEFAULT_VALID_STRING;
+
+        StringBuilder output = new StringBuilder(getInvalidHeader());
+        for (InvalidReason reason : InvalidReason.values()) {
+            if (!hasInvalidReason(reason)) continue;
+            if (reason.isStandalone()) return reason.describe(invalidSubject);
+            output.append("\t-").append(reason.describe(invalidSubject)).append("\n");
+        }
+        return output.toString();
+    }
+
+    /**
+     * Heading shown above the list of reasons an action is invalid
+     *
+     * @return the heading text
+     */
+    protected String getInvalidHeader(){
+        return "Invalid Action for Following Reasons:\n";
     }
 
     // Private
@@ -142,9 +222,21 @@ public abstract class Action {
     protected boolean validAction = true;
 
     /**
-     * Valid string output
+     * Valid string output, set only when a custom message is given
+     */
+    protected String validString = null;
+
+    /**
+     * Bitmask of the {@link InvalidReason}s recorded for this action
      */
-    protected String validString = "This move is valid";
+    protected int invalidReasons = 0;
+
+    /**
+     * Name of the piece the invalid reasons refer to
+     */
+    protected String invalidSubject = null;
+
+    private static final String DEFAULT_VALID_STRING = "This move is valid";
 
 
 }
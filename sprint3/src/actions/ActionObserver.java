@@ -0,0 +1,15 @@
+package actions;
+
+/**
+ * Receives every action that is played for real on a board, after it has been carried out.
+ * Actions tried and undone by the computer players are not reported.
+ */
+public interface ActionObserver {
+
+    /**
+     * Called once an action has been processed.
+     *
+     * @param action the action that was played
+     */
+    void actionPlayed(Action action);
+}
@@ -46,6 +46,26 @@ public class BuildAction extends Action {
         board.buildPiece(piece, position);
     }
 
+    /**
+     * Removes the built piece from the board
+     *
+     * @param board the board the piece was built on
+     */
+    @Override
+    public void revert(Board board) {
+        board.unbuildPiece(position);
+    }
+
+    /**
+     * Heading shown above the list of reasons the build is invalid
+     *
+     * @return the heading text
+     */
+    @Override
+    protected String getInvalidHeader() {
+        return "Invalid Build for Following Reasons:\n";
+    }
+
     /**
      * Processes the action and adds it to the history
      *
@@ -38,4 +38,14 @@ public class EndTurnAction extends Action {
     public void processAction(Board board) {
         this.setAsEndTurn();
     }
+
+    /**
+     * Clears the end-of-turn marker. No board changes
+     *
+     * @param board Board not used here
+     */
+    @Override
+    public void revert(Board board) {
+        endTurn = false;
+    }
 }
@@ -0,0 +1,56 @@
+package actions;
+
+/**
+ * The reasons an action can be invalid. An action keeps the reasons that apply to it as a
+ * bitmask, and the human-readable text is only put together when it is asked for, so
+ * generating actions that nobody reads costs no string work.
+ */
+public enum InvalidReason {
+    CLIMB_TOO_HIGH("Worker cannot jump up more than 2 blocks."),
+    MOVE_ONTO_WORKER("Worker cannot move to another space with a worker on it."),
+    UNTRAVERSABLE_PIECE("Worker cannot move to space with untraversable piece %s."),
+    BUILD_ON_WORKER("Cannot build on top of this worker."),
+    UNBUILDABLE_PIECE("Cannot build on top of piece %s."),
+    BUILD_ON_DOME("Cannot build on dome", true),
+    GOD_POWER_RESTRICTION("Not allowed by the god power.");
+
+    private final String message;
+    private final boolean standalone;
+
+    InvalidReason(String message) {
+        this(message, false);
+    }
+
+    InvalidReason(String message, boolean standalone) {
+        this.message = message;
+        this.standalone = standalone;
+    }
+
+    /**
+     * Returns the bit used for this reason in an action's reason mask.
+     *
+     * @return a single-bit mask
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Whether the reason is shown on its own rather than as an item in a list of reasons.
+     *
+     * @return true for stand-alone reasons
+     */
+    public boolean isStandalone() {
+        return standalone;
+    }
+
+    /**
+     * Formats the message for display.
+     *
+     * @param subject the piece name the message refers to, if any
+     * @return the readable message
+     */
+    public String describe(String subject) {
+        return message.contains("%s") ? String.format(message, subject) : message;
+    }
+}
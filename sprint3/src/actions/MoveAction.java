@@ -52,11 +52,26 @@ public class MoveAction extends Action {
     public void processAction(Board board) {
         worker.setCoordinate(end.getCoordinate());
     }
-    // For future implementation
-//    @Override
-//    public void undoAction(Board board) {
-//        board.moveWorker(worker, end, start);
-//    }
+
+    /**
+     * Moves the worker back to the space it started from.
+     *
+     * @param board The game board
+     */
+    @Override
+    public void revert(Board board) {
+        worker.setCoordinate(start.getCoordinate());
+    }
+
+    /**
+     * Heading shown above the list of reasons the move is invalid
+     *
+     * @return the heading text
+     */
+    @Override
+    protected String getInvalidHeader() {
+        return "Invalid Move for Following Reasons:\n";
+    }
 
     /**
      * Adds this move to the game history.
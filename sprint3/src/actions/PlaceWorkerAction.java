@@ -50,9 +50,24 @@ public class PlaceWorkerAction extends Action {
         }
     }
 
-//    @Override
-//    public void undoAction(Board board) {
-//        board.getSpace(position).popWorker();
-//    }
+    /**
+     * Gets the tile the worker is placed on.
+     *
+     * @return the placement position
+     */
+    public Coordinate getPosition() {
+        return position;
+    }
+
+    /**
+     * Takes the placed worker back off the board.
+     *
+     * @param board the game board
+     */
+    @Override
+    public void revert(Board board) {
+        worker.removeFromBoard();
+        endTurn = false;
+    }
 
 }
@@ -0,0 +1,334 @@
+package aiengine;
+
+import boardengine.Board;
+import boardengine.Coordinate;
+import boardengine.Zobrist;
+import gameengine.Game;
+import pieces.Worker;
+import playerelements.Player;
+
+import java.util.ArrayList;
+
+/**
+ * Alpha-beta search over complete (move, build) turns with iterative deepening.
+ * Searches deeper and deeper until the time budget runs out and plays the best turn of the
+ * deepest search that finished. With more than two players every opponent is assumed to play
+ * against the searching player, and an opponent without a legal turn is knocked out while the
+ * others play on, as in a real game. An optional {@link TranspositionTable} caches positions that are
+ * reached through different build orders.
+ */
+public class AlphaBetaSearch implements TurnStrategy {
+
+    private static final int WIN = 1_000_000;
+    // Scores this close to WIN are wins or losses a number of plies away
+    private static final int WIN_THRESHOLD = WIN - 1_000;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    // How often (in nodes) the clock is checked
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final long timeBudgetMillis;
+    private final int maxDepth;
+    private final TranspositionTable table;
+
+    private long nodes;
+    private long deadline;
+    private boolean outOfTime;
+    private SearchResult lastResult;
+    // XOR of the keys that stay fixed during one search (searching player and gods)
+    private long searchKey;
+
+    /**
+     * Creates a search with the given time budget per turn that caches positions in a
+     * transposition table. The table may be shared with searches running on other threads.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     * @param maxDepth         the deepest search to attempt, in turns
+     * @param table            the transposition table to use, or null for none
+     */
+    public AlphaBetaSearch(long timeBudgetMillis, int maxDepth, TranspositionTable table) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.maxDepth = maxDepth;
+        this.table = table;
+    }
+
+    /**
+     * Creates a search with the given time budget per turn.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     * @param maxDepth         the deepest search to attempt, in turns
+     */
+    public AlphaBetaSearch(long timeBudgetMillis, int maxDepth) {
+        this(timeBudgetMillis, maxDepth, null);
+    }
+
+    /**
+     * Creates a search with the given time budget per turn and no depth limit.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     */
+    public AlphaBetaSearch(long timeBudgetMillis) {
+        this(timeBudgetMillis, 64);
+    }
+
+    /**
+     * Chooses a turn for the player using iterative deepening.
+     *
+     * @param game   the game being played
+     * @param player the player whose turn it is
+     * @return the best turn found, or null if the player has no legal turn
+     */
+    @Override
+    public Turn chooseTurn(Game game, Player player) {
+        return search(game.getBoard(), game.getPlayers(), player).bestTurn;
+    }
+
+    /**
+     * Runs the search and returns the full result, including statistics.
+     *
+     * @param board   the game board
+     * @param players the players in turn order
+     * @param player  the player to move
+     * @return the result of the deepest completed search
+     */
+    public SearchResult search(Board board, Player[] players, Player player) {
+        long start = System.nanoTime();
+        deadline = start + timeBudgetMillis * 1_000_000L;
+        nodes = 0;
+        outOfTime = false;
+
+        ArrayList<Turn> rootTurns = TurnGenerator.generateTurns(board, player);
+        int playerIndex = indexOf(players, player);
+        searchKey = Zobrist.searchRoot(playerIndex);
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].getGod() != null) searchKey ^= Zobrist.god(i, players[i].getGod().getName());
+        }
+        Turn bestTurn = rootTurns.isEmpty() ? null : rootTurns.get(0);
+        int bestScore = bestTurn != null && bestTurn.isWin() ? WIN : -INFINITY;
+        int completedDepth = 0;
+
+        for (int depth = 1; depth <= maxDepth && rootTurns.size() > 1 && !bestTurn.isWin(); depth++) {
+            Turn depthBest = null;
+            int alpha = -INFINITY;
+            int boardDepth = board.getUndoDepth();
+
+            for (Turn turn : rootTurns) {
+                turn.apply(board);
+                int score = turn.isWin() ? WIN
+                        : alphaBeta(board, players, player, next(players, playerIndex), depth - 1, 1, alpha, INFINITY);
+                board.undoTo(boardDepth);
+                if (outOfTime) break;
+
+                if (depthBest == null || score > alpha) {
+                    alpha = score;
+                    depthBest = turn;
+                }
+            }
+            if (outOfTime) break;
+
+            bestTurn = depthBest;
+            bestScore = alpha;
+            completedDepth = depth;
+            // Search the best turn first at the next depth
+            rootTurns.remove(depthBest);
+            rootTurns.add(0, depthBest);
+            if (Math.abs(bestScore) >= WIN_THRESHOLD) break; // forced result found
+        }
+
+        lastResult = new SearchResult(bestTurn, bestScore, completedDepth, nodes, System.nanoTime() - start);
+        return lastResult;
+    }
+
+    /**
+     * Gets the result of the most recent search.
+     *
+     * @return the last search result, or null if no search has run
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Minimax with alpha-beta pruning, scored from the root player's point of view.
+     */
+    private int alphaBeta(Board board, Player[] players, Player root, int toMove, int depth, int ply, int alpha, int beta) {
+        // An interrupted search gives up as if it had run out of time
+        if (++nodes % TIME_CHECK_INTERVAL == 0
+                && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+            outOfTime = true;
+        }
+        if (outOfTime) return 0;
+
+        Player player = players[toMove];
+        boolean maximising = player == root;
+        if (depth == 0) return PositionEvaluator.evaluate(board, players, root);
+
+        // Reuse what an earlier search found about this position
+        long key = board.getZobristKey() ^ Zobrist.sideToMove(toMove) ^ searchKey;
+        int ttBest = -1;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                ttBest = TranspositionTable.bestTurn(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int flag = TranspositionTable.flag(entry);
+                    if (flag == TranspositionTable.EXACT) return score;
+                    if (flag == TranspositionTable.LOWER_BOUND) alpha = Math.max(alpha, score);
+                    if (flag == TranspositionTable.UPPER_BOUND) beta = Math.min(beta, score);
+                    if (alpha >= beta) return score;
+                }
+            }
+        }
+
+        ArrayList<Turn> turns = TurnGenerator.generateTurns(board, player);
+        if (turns.isEmpty()) {
+            // A player who cannot move is out, which ends the game once only one player is left
+            if (maximising) return -(WIN - ply);
+            if (next(players, next(players, toMove)) == toMove) return WIN - ply;
+            int boardDepth = board.getUndoDepth();
+            knockOut(board, player);
+            int score = alphaBeta(board, players, root, next(players, toMove), depth, ply + 1, alpha, beta);
+            board.undoTo(boardDepth);
+            return score;
+        }
+        if (turns.get(0).isWin()) {
+            return maximising ? WIN - ply : -(WIN - ply);
+        }
+        if (ttBest > 0 && ttBest < turns.size()) {
+            turns.add(0, turns.remove(ttBest));
+        }
+
+        int originalAlpha = alpha;
+        int originalBeta = beta;
+        int boardDepth = board.getUndoDepth();
+        int best = maximising ? -INFINITY : INFINITY;
+        int bestIndex = 0;
+        for (int i = 0; i < turns.size(); i++) {
+            turns.get(i).apply(board);
+            int score = alphaBeta(board, players, root, next(players, toMove), depth - 1, ply + 1, alpha, beta);
+            board.undoTo(boardDepth);
+            if (outOfTime) return 0;
+
+            if (maximising ? score > best : score < best) {
+                best = score;
+                bestIndex = i;
+            }
+            if (maximising) {
+                alpha = Math.max(alpha, score);
+            } else {
+                beta = Math.min(beta, score);
+            }
+            if (alpha >= beta) break;
+        }
+
+        if (table != null) {
+            int flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                    : best >= originalBeta ? TranspositionTable.LOWER_BOUND
+                    : TranspositionTable.EXACT;
+            // Remember the best turn by its index in the list as generated
+            int generatedIndex = indexOfGenerated(turns, bestIndex, ttBest);
+            table.store(key, toTable(best, ply), depth, flag, generatedIndex);
+        }
+        return best;
+    }
+
+    /**
+     * Maps an index in the reordered turn list back to the index it had when generated.
+     */
+    private static int indexOfGenerated(ArrayList<Turn> turns, int index, int ttBest) {
+        if (ttBest <= 0 || ttBest >= turns.size()) return index;
+        if (index == 0) return ttBest;
+        return index <= ttBest ? index - 1 : index;
+    }
+
+    /**
+     * Stores wins relative to the current position rather than the root, so they stay
+     * correct when the position is reached at a different ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score + ply;
+        if (score <= -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score - ply;
+        if (score <= -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    /**
+     * Finds the next player after the given one who still has workers on the board.
+     */
+    private static int next(Player[] players, int index) {
+        for (int step = 1; step < players.length; step++) {
+            int candidate = (index + step) % players.length;
+            if (isInGame(players[candidate])) return candidate;
+        }
+        return index;
+    }
+
+    private static boolean isInGame(Player player) {
+        for (Worker worker : player.getWorkers()) {
+            if (worker.getCoordinate() != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a player's workers off the board through the undo journal, as a player without a
+     * legal turn leaves the game.
+     */
+    private static void knockOut(Board board, Player player) {
+        for (Worker worker : player.getWorkers()) {
+            Coordinate position = worker.getCoordinate();
+            if (position == null) continue;
+            worker.removeFromBoard();
+            board.recordChange(b -> worker.setCoordinate(position));
+        }
+    }
+
+    private static int indexOf(Player[] players, Player player) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] == player) return i;
+        }
+        throw new IllegalArgumentException("Player is not part of the game");
+    }
+
+    /**
+     * The outcome of a search along with the statistics used to size hardware.
+     */
+    public static class SearchResult {
+        /** The best turn found. */
+        public final Turn bestTurn;
+        /** Score of the best turn from the searching player's point of view. */
+        public final int score;
+        /** Deepest search that finished, in turns. */
+        public final int depth;
+        /** Number of positions visited. */
+        public final long nodes;
+        /** Time spent searching, in nanoseconds. */
+        public final long elapsedNanos;
+
+        SearchResult(Turn bestTurn, int score, int depth, long nodes, long elapsedNanos) {
+            this.bestTurn = bestTurn;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return positions visited per second
+         */
+        public double nodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("depth %d, score %d, %d nodes in %.1f ms (%.0f nodes/s)",
+                    depth, score, nodes, elapsedNanos / 1e6, nodesPerSecond());
+        }
+    }
+}
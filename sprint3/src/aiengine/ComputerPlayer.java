@@ -0,0 +1,59 @@
+package aiengine;
+
+import boardengine.Board;
+import gameengine.Game;
+import pieces.Worker;
+import pieces.workerfeatures.WorkerAppearance;
+import playerelements.Player;
+import playerelements.gods.God;
+
+/**
+ * A player whose turns are chosen by a {@link TurnStrategy} instead of by a person.
+ */
+public class ComputerPlayer extends Player {
+
+    private final Game game;
+    private final TurnStrategy strategy;
+
+    /**
+     * Creates a computer controlled player.
+     *
+     * @param playerID   the ID of the player
+     * @param god        the god assigned to the player
+     * @param board      the game board
+     * @param appearance the appearance of the player's workers
+     * @param game       the game being played
+     * @param strategy   decides which turn to take
+     */
+    public ComputerPlayer(int playerID, God god, Board board, WorkerAppearance appearance, Game game, TurnStrategy strategy) {
+        super(playerID, god, board, appearance);
+        this.game = game;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Chooses and plays a full turn.
+     *
+     * @return true if the turn won the game
+     */
+    @Override
+    public boolean completeTurn() {
+        Turn turn = strategy.chooseTurn(game, this);
+        if (turn == null) return false;
+
+        turn.play();
+        for (Worker worker : getWorkers()) {
+            worker.resetHistory();
+        }
+        return turn.isWin();
+    }
+
+    /**
+     * Gets the strategy used to choose turns.
+     *
+     * @return the turn strategy
+     */
+    public TurnStrategy getStrategy() {
+        return strategy;
+    }
+}
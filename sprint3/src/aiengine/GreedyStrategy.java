@@ -0,0 +1,43 @@
+package aiengine;
+
+import boardengine.Board;
+import gameengine.Game;
+import playerelements.Player;
+
+import java.util.ArrayList;
+
+/**
+ * Looks one turn ahead: wins straight away if it can, and otherwise plays the turn that leaves
+ * the best position according to {@link PositionEvaluator}.
+ */
+public class GreedyStrategy implements TurnStrategy {
+
+    /**
+     * Chooses the turn with the best immediate evaluation.
+     *
+     * @param game   the game being played
+     * @param player the player whose turn it is
+     * @return the best turn, or null if the player has no legal turn
+     */
+    @Override
+    public Turn chooseTurn(Game game, Player player) {
+        Board board = game.getBoard();
+        ArrayList<Turn> turns = TurnGenerator.generateTurns(board, player);
+        if (turns.isEmpty()) return null;
+        if (turns.get(0).isWin()) return turns.get(0);
+
+        Turn best = null;
+        int bestScore = Integer.MIN_VALUE;
+        int depth = board.getUndoDepth();
+        for (Turn turn : turns) {
+            turn.apply(board);
+            int score = PositionEvaluator.evaluate(board, game.getPlayers(), player);
+            board.undoTo(depth);
+            if (score > bestScore) {
+                bestScore = score;
+                best = turn;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,380 @@
+package aiengine;
+
+import boardengine.Board;
+import gameengine.Game;
+import playerelements.Player;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo tree search (UCT) over complete (move, build) turns. Each iteration walks down the
+ * tree picking the child with the best upper confidence bound, adds the children of the position
+ * it reaches, and finishes the game with random turns to see who wins. The turn visited most
+ * often at the root is played.
+ * <p>
+ * Iterations run in parallel on a {@link ForkJoinPool}, all sharing one tree. Every thread plays
+ * turns on its own {@link SimulationState}, so the real board is never touched. While a thread is
+ * working below a node the node carries a "virtual loss", which makes the other threads try
+ * different lines instead of all following the same one. A search with one thread runs on the
+ * calling thread and does not use the pool.
+ * <p>
+ * Playouts follow the basic rules: a player always takes a winning move if one exists, and a
+ * player without a legal turn is knocked out. A god's win condition, such as Pan winning by
+ * moving down, counts in the tree and in playouts. Extra moves and builds from gods are not
+ * simulated.
+ */
+public class MonteCarloTreeSearch implements TurnStrategy {
+
+    // Exploration constant of the upper confidence bound
+    private static final double EXPLORATION = Math.sqrt(2);
+    // Rewards are counted in half points so a draw can score one half
+    private static final int WIN_REWARD = 2;
+    private static final int DRAW_REWARD = 1;
+    // Playouts this long are called a draw
+    private static final int MAX_PLAYOUT_TURNS = 200;
+
+    private final long timeBudgetMillis;
+    private final long maxIterations;
+    private final ForkJoinPool pool;
+    private final int threads;
+
+    private SearchResult lastResult;
+
+    /**
+     * Creates a search limited by time and by number of playouts, whichever runs out first.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     * @param maxIterations    the most playouts to run per turn
+     * @param pool             the pool to run playouts on, may be null if threads is 1
+     * @param threads          the number of playouts to run at once
+     */
+    public MonteCarloTreeSearch(long timeBudgetMillis, long maxIterations, ForkJoinPool pool, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is needed");
+        if (pool == null && threads > 1) throw new IllegalArgumentException("A pool is needed for more than one thread");
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.maxIterations = maxIterations;
+        this.pool = pool;
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a search with the given time budget per turn, running on the common pool with one
+     * thread per processor.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     */
+    public MonteCarloTreeSearch(long timeBudgetMillis) {
+        this(timeBudgetMillis, Long.MAX_VALUE, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search that runs a fixed number of playouts per turn, running on the common pool
+     * with one thread per processor.
+     *
+     * @param maxIterations the number of playouts to run per turn
+     * @return the search
+     */
+    public static MonteCarloTreeSearch withIterations(long maxIterations) {
+        return new MonteCarloTreeSearch(Long.MAX_VALUE, maxIterations,
+                ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search with the given time budget per turn that runs every playout on the
+     * thread that calls it, for callers that already run one search per thread.
+     *
+     * @param timeBudgetMillis how long to think about each turn
+     * @return the search
+     */
+    public static MonteCarloTreeSearch singleThreaded(long timeBudgetMillis) {
+        return new MonteCarloTreeSearch(timeBudgetMillis, Long.MAX_VALUE, null, 1);
+    }
+
+    /**
+     * Chooses a turn for the player.
+     *
+     * @param game   the game being played
+     * @param player the player whose turn it is
+     * @return the most visited turn, or null if the player has no legal turn
+     */
+    @Override
+    public Turn chooseTurn(Game game, Player player) {
+        return search(game.getBoard(), game.getPlayers(), player).bestTurn;
+    }
+
+    /**
+     * Runs the search and returns the full result, including statistics.
+     *
+     * @param board   the game board
+     * @param players the players in turn order
+     * @param player  the player to move
+     * @return the result of the search
+     */
+    public SearchResult search(Board board, Player[] players, Player player) {
+        long start = System.nanoTime();
+        long budgetNanos = timeBudgetMillis >= Long.MAX_VALUE / 1_000_000L ? Long.MAX_VALUE : timeBudgetMillis * 1_000_000L;
+        int playerIndex = indexOf(players, player);
+        Node root = new Node(Turn.PASS, -1, playerIndex);
+        AtomicLong iterations = new AtomicLong();
+
+        if (threads == 1) {
+            // Nothing to share the tree with, so the playouts never queue behind other pool work
+            runIterations(SimulationState.copyOf(board, players), root, iterations, start, budgetNanos);
+        } else {
+            ArrayList<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    runIterations(SimulationState.copyOf(board, players), root, iterations, start, budgetNanos);
+                    return null;
+                });
+            }
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Playout failed", e.getCause());
+                }
+            }
+        }
+
+        Node best = root.mostVisitedChild();
+        Turn bestTurn = null;
+        double winRate = 0;
+        if (best != null && best.code != Turn.PASS) {
+            bestTurn = Turn.decode(board, player, best.code);
+            winRate = best.visits.get() == 0 ? 0 : best.reward.get() / (double) (WIN_REWARD * best.visits.get());
+        }
+        long done = Math.min(iterations.get(), maxIterations);
+        lastResult = new SearchResult(bestTurn, winRate, done, best == null ? 0 : best.visits.get(), System.nanoTime() - start);
+        return lastResult;
+    }
+
+    /**
+     * Gets the result of the most recent search.
+     *
+     * @return the last search result, or null if no search has run
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Runs playouts on one thread until the time or iteration budget is used up.
+     */
+    private void runIterations(SimulationState state, Node root, AtomicLong iterations, long start, long budgetNanos) {
+        SplittableRandom random = new SplittableRandom();
+        int[] codes = new int[SimulationState.MAX_TURNS];
+        ArrayList<Node> path = new ArrayList<>();
+        int startDepth = state.board.getUndoDepth();
+
+        while (System.nanoTime() - start < budgetNanos && iterations.getAndIncrement() < maxIterations) {
+            path.clear();
+            Node node = root;
+            node.virtualLoss.incrementAndGet();
+            path.add(node);
+
+            // Selection: follow the best bound down to a node that has not been expanded yet
+            while (node.children != null && !node.terminal) {
+                node = node.select();
+                node.virtualLoss.incrementAndGet();
+                path.add(node);
+                state.applyTurn(node.mover, node.code);
+            }
+
+            // Expansion: add the children, then step into one of them
+            if (!node.terminal) {
+                Node[] children = node.expand(state, codes);
+                Node child = children[random.nextInt(children.length)];
+                child.virtualLoss.incrementAndGet();
+                path.add(child);
+                state.applyTurn(child.mover, child.code);
+                node = child;
+            }
+
+            // Simulation
+            int winner = node.terminal ? node.winner : playout(state, node.toMove, codes, random);
+
+            // Backpropagation
+            for (Node visited : path) {
+                visited.visits.incrementAndGet();
+                if (winner < 0) {
+                    visited.reward.addAndGet(DRAW_REWARD);
+                } else if (visited.mover == winner) {
+                    visited.reward.addAndGet(WIN_REWARD);
+                }
+                visited.virtualLoss.decrementAndGet();
+            }
+            state.board.undoTo(startDepth);
+        }
+    }
+
+    /**
+     * Plays random turns until someone wins.
+     *
+     * @return the index of the winner, or -1 for a draw
+     */
+    private static int playout(SimulationState state, int toMove, int[] codes, SplittableRandom random) {
+        for (int turn = 0; turn < MAX_PLAYOUT_TURNS; turn++) {
+            int count = state.generateTurnCodes(toMove, codes);
+            if (count == 0) {
+                state.applyTurn(toMove, Turn.PASS);
+                int next = state.nextInGame(toMove);
+                if (next < 0 || state.nextInGame(next) == next) return next; // last player standing
+                toMove = next;
+                continue;
+            }
+            int code = codes[random.nextInt(count)];
+            if (Turn.isWinCode(code)) return toMove;
+            state.applyTurn(toMove, code);
+            toMove = state.nextInGame(toMove);
+        }
+        return -1;
+    }
+
+    private static int indexOf(Player[] players, Player player) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] == player) return i;
+        }
+        throw new IllegalArgumentException("Player is not part of the game");
+    }
+
+    /**
+     * A position in the search tree, reached by one turn code from its parent. Statistics are
+     * updated by several threads at once, so they are kept in atomics.
+     */
+    private static class Node {
+        // The turn that leads here and the player who took it
+        final int code;
+        final int mover;
+        // The player to move in this position
+        final int toMove;
+        final AtomicInteger visits = new AtomicInteger();
+        final AtomicInteger virtualLoss = new AtomicInteger();
+        // Half points won by the mover through this node
+        final AtomicLong reward = new AtomicLong();
+
+        volatile Node[] children;
+        boolean terminal;
+        int winner = -1;
+
+        Node(int code, int mover, int toMove) {
+            this.code = code;
+            this.mover = mover;
+            this.toMove = toMove;
+        }
+
+        /**
+         * Picks the child with the highest upper confidence bound. Threads still working below a
+         * child count as visits that lost, which spreads the threads over the tree.
+         */
+        Node select() {
+            Node[] options = children;
+            double logVisits = Math.log(Math.max(1, visits.get() + virtualLoss.get()));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : options) {
+                int n = child.visits.get() + child.virtualLoss.get();
+                if (n == 0) return child;
+                double value = child.reward.get() / (double) (WIN_REWARD * n)
+                        + EXPLORATION * Math.sqrt(logVisits / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Creates the children of this node from the simulation state, which must be in this
+         * node's position. Only the first thread to get here creates them.
+         */
+        synchronized Node[] expand(SimulationState state, int[] codes) {
+            if (children != null) return children;
+
+            int count = state.generateTurnCodes(toMove, codes);
+            Node[] created;
+            if (count == 0) {
+                // Knocked out: the remaining players carry on, or the last one wins
+                int depth = state.board.getUndoDepth();
+                state.applyTurn(toMove, Turn.PASS);
+                int next = state.nextInGame(toMove);
+                boolean gameOver = next < 0 || state.nextInGame(next) == next;
+                state.board.undoTo(depth);
+
+                Node pass = new Node(Turn.PASS, toMove, next);
+                pass.terminal = gameOver;
+                pass.winner = next;
+                created = new Node[]{pass};
+            } else {
+                int next = state.nextInGame(toMove);
+                created = new Node[count];
+                for (int i = 0; i < count; i++) {
+                    created[i] = new Node(codes[i], toMove, next);
+                    if (Turn.isWinCode(codes[i])) {
+                        created[i].terminal = true;
+                        created[i].winner = toMove;
+                    }
+                }
+            }
+            children = created;
+            return created;
+        }
+
+        Node mostVisitedChild() {
+            Node[] options = children;
+            if (options == null) return null;
+            Node best = null;
+            for (Node child : options) {
+                if (best == null || child.visits.get() > best.visits.get()) best = child;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * The outcome of a search along with its statistics.
+     */
+    public static class SearchResult {
+        /** The most visited turn. */
+        public final Turn bestTurn;
+        /** Share of the playouts through the best turn that the searching player won. */
+        public final double winRate;
+        /** Number of playouts run. */
+        public final long iterations;
+        /** Number of playouts that went through the best turn. */
+        public final long bestVisits;
+        /** Time spent searching, in nanoseconds. */
+        public final long elapsedNanos;
+
+        SearchResult(Turn bestTurn, double winRate, long iterations, long bestVisits, long elapsedNanos) {
+            this.bestTurn = bestTurn;
+            this.winRate = winRate;
+            this.iterations = iterations;
+            this.bestVisits = bestVisits;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return playouts run per second
+         */
+        public double iterationsPerSecond() {
+            return elapsedNanos == 0 ? 0 : iterations * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("win rate %.2f, %d playouts (%d on best turn) in %.1f ms (%.0f playouts/s)",
+                    winRate, iterations, bestVisits, elapsedNanos / 1e6, iterationsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package aiengine;
+
+import actions.Action;
+import actions.BuildAction;
+import actions.MoveAction;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import pieces.Worker;
+import pieces.workerfeatures.WorkerAppearanceFactory;
+import playerelements.Player;
+import playerelements.gods.God;
+import playerelements.gods.GodPower;
+import playerelements.gods.GodRegistry;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+
+/**
+ * Counts the complete turns reachable from a position to a fixed depth ("perft").
+ * Walks every move from {@link Worker#getMoveActions(Board)}, every build from
+ * {@link Worker#getBuildActions(Board)} (and optionally {@link Worker#getHelpfulBuildActions(Board)}),
+ * and every extra move or build offered by a player's god through its compiled {@link GodPower}. Comparing the counts against known
+ * values checks that move generation is still exactly the same after an optimisation, and the
+ * timing shows whether it got faster.
+ * <p>
+ * A winning move ends the game, so it counts as one leaf turn and is not searched further.
+ * A player without a legal move has lost and contributes no turns. Helpful builds are counted
+ * as separate turns without using up the player's tokens.
+ */
+public class Perft {
+
+    /**
+     * Reference counts for the standard start on an empty 5x5 board, depths 1 to 3.
+     */
+    public static final long[] DEFAULT_5X5 = {80, 6_176, 426_384};
+
+    /**
+     * Reference counts for the standard start on maps/donut.map, depths 1 to 3.
+     */
+    public static final long[] DONUT = {56, 2_952, 143_744};
+
+    /**
+     * Reference counts for the standard start on an empty 5x5 board where the first player has
+     * Artemis, depths 1 to 3.
+     */
+    public static final long[] DEFAULT_5X5_ARTEMIS = {416, 31_888, 11_572_892};
+
+    private final Board board;
+    private final Player[] players;
+    // God power of each player, looked up once instead of at every node
+    private final GodPower[] powers;
+    private final boolean helpfulBuilds;
+    // Actions taken so far in the current turn, used to rebuild the worker's history on undo
+    private final ArrayList<Action> turnActions = new ArrayList<>();
+
+    /**
+     * Creates a perft counter for a position.
+     *
+     * @param board         the board, with every worker already placed
+     * @param players       the players in turn order, starting with the player to move
+     * @param helpfulBuilds whether to count helpful-token builds for players that have a token
+     */
+    public Perft(Board board, Player[] players, boolean helpfulBuilds) {
+        this.board = board;
+        this.players = players;
+        this.helpfulBuilds = helpfulBuilds;
+        powers = new GodPower[players.length];
+        for (int i = 0; i < players.length; i++) {
+            powers[i] = GodPower.of(players[i].getGod());
+        }
+    }
+
+    /**
+     * Counts the leaf turns reachable in the given number of turns.
+     *
+     * @param depth the number of turns to walk
+     * @return the number of leaf turns
+     */
+    public long perft(int depth) {
+        return perft(0, depth);
+    }
+
+    /**
+     * Sets up the standard perft start: the first player's workers on the (1,1)/(3,3) diagonal
+     * and the second player's on (1,3)/(3,1).
+     *
+     * @param board the board to set up
+     * @param gods  the god for each of the two players (entries may be null)
+     * @return the two players in turn order
+     */
+    public static Player[] standardStart(Board board, God[] gods) {
+        Player[] players = new Player[2];
+        int[][][] squares = {{{1, 1}, {3, 3}}, {{1, 3}, {3, 1}}};
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player(i, gods[i], board, WorkerAppearanceFactory.getAppearanceForPlayer(i));
+            Worker[] workers = players[i].getWorkers();
+            for (int w = 0; w < workers.length; w++) {
+                workers[w].setCoordinate(board.getCoordinate(squares[i][w][0], squares[i][w][1]));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Runs the reference positions and prints counts and turns per second. With {@code --verify}
+     * the counts are compared against the stored reference values and the exit code is non-zero
+     * on any mismatch.
+     *
+     * @param args {@code [--verify] [maps directory]}
+     * @throws FileNotFoundException if donut.map cannot be found
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        boolean verify = args.length > 0 && args[0].equals("--verify");
+        String mapsDirectory = args.length > (verify ? 1 : 0) ? args[verify ? 1 : 0] : "maps";
+        BoardTemplate donut = BoardTemplate.forMap(new File(mapsDirectory, "donut.map"));
+
+        boolean ok = true;
+        Board board = new Board(5, 5);
+        ok &= run("5x5", board, standardStart(board, new God[2]), DEFAULT_5X5, verify);
+        board = donut.newBoard();
+        ok &= run("donut.map", board, standardStart(board, new God[2]), DONUT, verify);
+        board = new Board(5, 5);
+        ok &= run("5x5 Artemis", board, standardStart(board, new God[]{GodRegistry.create("Artemis"), null}), DEFAULT_5X5_ARTEMIS, verify);
+
+        if (verify) {
+            System.out.println(ok ? "All perft counts match" : "Perft counts DO NOT match");
+            if (!ok) System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one reference position and prints each depth.
+     */
+    private static boolean run(String name, Board board, Player[] players, long[] expected, boolean verify) {
+        Perft perft = new Perft(board, players, false);
+        boolean ok = true;
+        for (int depth = 1; depth <= 3; depth++) {
+            long start = System.nanoTime();
+            long count = perft.perft(depth);
+            long elapsed = System.nanoTime() - start;
+            String result = "";
+            if (verify) {
+                boolean match = depth <= expected.length && expected[depth - 1] == count;
+                result = match ? " OK" : " MISMATCH (expected " + (depth <= expected.length ? expected[depth - 1] : "?") + ")";
+                ok &= match;
+            }
+            System.out.printf("%-12s depth %d: %,12d turns  %,14.0f turns/s%s%n",
+                    name, depth, count, count * 1e9 / Math.max(1, elapsed), result);
+        }
+        return ok;
+    }
+
+    private long perft(int toMove, int depth) {
+        Player player = players[toMove];
+        long count = 0;
+        for (Worker worker : player.getWorkers()) {
+            worker.resetHistory();
+            for (MoveAction move : worker.getMoveActions(board)) {
+                if (!move.isValid()) continue;
+                count += afterMove(player, worker, move, toMove, depth);
+            }
+            worker.resetHistory();
+        }
+        return count;
+    }
+
+    /**
+     * Counts the turns that start with the given move, including any extra moves from a god.
+     */
+    private long afterMove(Player player, Worker worker, MoveAction move, int toMove, int depth) {
+        GodPower power = powers[toMove];
+        if (power.isWin(move)) return 1;
+
+        int mark = board.getUndoDepth();
+        int size = turnActions.size();
+        play(worker, move);
+        long count = builds(player, worker, toMove, depth);
+
+        if (power.canMoveAgain(worker)) {
+            for (MoveAction extra : worker.getMoveActions(board)) {
+                if (!extra.isValid() || !power.allowsExtraMove(worker, extra)) continue;
+                count += afterMove(player, worker, extra, toMove, depth);
+            }
+        }
+
+        takeBack(mark, size);
+        return count;
+    }
+
+    /**
+     * Counts the turns that follow a completed move with each possible build.
+     */
+    private long builds(Player player, Worker worker, int toMove, int depth) {
+        ArrayList<BuildAction> builds = worker.getBuildActions(board);
+        if (helpfulBuilds && player.hasHelpfulToken()) {
+            builds.addAll(worker.getHelpfulBuildActions(board));
+        }
+        if (powers[toMove].canBuildUnderSelf(worker)) {
+            builds.add(powers[toMove].createBuildUnderSelf(worker));
+        }
+
+        long count = 0;
+        for (BuildAction build : builds) {
+            if (!build.isValid()) continue;
+            count += afterBuild(player, worker, build, toMove, depth);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the turns that end with the given build, including any extra builds from a god.
+     */
+    private long afterBuild(Player player, Worker worker, BuildAction build, int toMove, int depth) {
+        int mark = board.getUndoDepth();
+        int size = turnActions.size();
+        play(worker, build);
+        long count = endTurn(worker, toMove, depth);
+
+        GodPower power = powers[toMove];
+        if (power.canBuildAgain(worker)) {
+            for (BuildAction extra : worker.getBuildActions(board)) {
+                if (!extra.isValid() || !power.allowsExtraBuild(worker, extra)) continue;
+                int extraMark = board.getUndoDepth();
+                play(worker, extra);
+                count += endTurn(worker, toMove, depth);
+                takeBack(extraMark, size + 1);
+            }
+        }
+
+        takeBack(mark, size);
+        return count;
+    }
+
+    /**
+     * Ends the turn and counts it as a leaf, or hands over to the next player.
+     */
+    private long endTurn(Worker worker, int toMove, int depth) {
+        if (depth == 1) return 1;
+        ArrayList<Action> saved = new ArrayList<>(turnActions);
+        turnActions.clear();
+        worker.resetHistory();
+
+        long count = perft((toMove + 1) % players.length, depth - 1);
+
+        turnActions.addAll(saved);
+        rebuildHistory(worker);
+        return count;
+    }
+
+    private void play(Worker worker, Action action) {
+        worker.applyTurn(action);
+        turnActions.add(action);
+    }
+
+    /**
+     * Undoes actions back to a journal depth. The journal also restores the worker's history.
+     */
+    private void takeBack(int mark, int size) {
+        board.undoTo(mark);
+        while (turnActions.size() > size) {
+            turnActions.remove(turnActions.size() - 1);
+        }
+    }
+
+    private void rebuildHistory(Worker worker) {
+        worker.resetHistory();
+        for (Action action : turnActions) {
+            worker.addToHistory(action);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package aiengine;
+
+import boardengine.Board;
+import boardengine.Space;
+import pieces.Worker;
+import playerelements.Player;
+
+/**
+ * Static evaluation of a position from one player's point of view.
+ * Rewards standing high, having room to climb and having places to move.
+ */
+public class PositionEvaluator {
+
+    private static final int HEIGHT_WEIGHT = 30;
+    private static final int CLIMB_WEIGHT = 8;
+    private static final int MOBILITY_WEIGHT = 2;
+
+    /**
+     * Scores the position for a player relative to all of their opponents.
+     *
+     * @param board   the game board
+     * @param players every player still in the game
+     * @param player  the player to score for
+     * @return a positive score if the position favours the player
+     */
+    public static int evaluate(Board board, Player[] players, Player player) {
+        int score = 0;
+        for (Player other : players) {
+            int value = scorePlayer(board, other);
+            score += other == player ? value * (players.length - 1) : -value;
+        }
+        return score;
+    }
+
+    /**
+     * Scores a single player's workers.
+     */
+    private static int scorePlayer(Board board, Player player) {
+        int score = 0;
+        for (Worker worker : player.getWorkers()) {
+            if (worker.getCoordinate() == null) continue;
+            int cell = board.cellIndex(worker.getCoordinate());
+            int height = board.getSpace(cell).getHeight();
+            score += height * HEIGHT_WEIGHT;
+
+            for (int neighbour : board.getNeighbours(cell)) {
+                Space space = board.getSpace(neighbour);
+                if (space.hasWorker() || !space.isTraversable()) continue;
+                int step = space.getHeight() - height;
+                if (step >= 2) continue;
+                score += MOBILITY_WEIGHT;
+                if (step == 1) score += CLIMB_WEIGHT;
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,28 @@
+package aiengine;
+
+import gameengine.Game;
+import playerelements.Player;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Plays a uniformly random legal turn. Useful as a baseline opponent and for quickly filling a
+ * board with realistic positions.
+ */
+public class RandomStrategy implements TurnStrategy {
+
+    /**
+     * Chooses a random legal turn for the player.
+     *
+     * @param game   the game being played
+     * @param player the player whose turn it is
+     * @return a random turn, or null if the player has no legal turn
+     */
+    @Override
+    public Turn chooseTurn(Game game, Player player) {
+        ArrayList<Turn> turns = TurnGenerator.generateTurns(game.getBoard(), player);
+        if (turns.isEmpty()) return null;
+        return turns.get(ThreadLocalRandom.current().nextInt(turns.size()));
+    }
+}
@@ -0,0 +1,355 @@
+package aiengine;
+
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import gameengine.Game;
+import gameengine.PositionArchive;
+import gameengine.PositionCodec;
+import pieces.Worker;
+import playerelements.Player;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Plays many computer-only games without a gui and writes one line per game to a CSV or JSON
+ * Lines file: the winner, how many turns the game took and which gods were playing. Games are
+ * spread over a fixed thread pool with each game running start to finish on one thread, so the
+ * throughput grows with the number of cores.
+ * <p>
+ * Usage: {@code SelfPlayRunner [--games N] [--strategies random,greedy] [--threads N]
+ * [--think-ms N] [--max-turns N] [--map file] [--out results.csv|results.jsonl] [--positions file]}
+ * <p>
+ * Strategy names are {@code random}, {@code greedy}, {@code search} (alpha-beta) and
+ * {@code mcts}. The number of strategies is the number of players. With {@code --positions}
+ * every position reached is also stored in a {@link PositionArchive}.
+ */
+public class SelfPlayRunner {
+
+    private final int games;
+    private final List<Supplier<TurnStrategy>> strategies = new ArrayList<>();
+    private final String[] strategyNames;
+    private final BoardTemplate template;
+    private final int maxTurns;
+    private PositionArchive.Writer archive;
+    private PositionCodec codec;
+
+    /**
+     * Creates a runner.
+     *
+     * @param games         the number of games to play
+     * @param strategyNames the strategy name of each player, in turn order
+     * @param thinkMillis   time budget per turn for the search strategies
+     * @param template      the map to play on
+     * @param maxTurns      games that reach this many turns are recorded as a draw
+     */
+    public SelfPlayRunner(int games, String[] strategyNames, long thinkMillis, BoardTemplate template, int maxTurns) {
+        this.games = games;
+        this.strategyNames = strategyNames;
+        this.template = template;
+        this.maxTurns = maxTurns;
+        for (String name : strategyNames) {
+            strategies.add(strategyFactory(name, thinkMillis));
+        }
+    }
+
+    /**
+     * Stores every position reached in each game in an archive. Positions are encoded on the
+     * game's thread and appended in the order the games finish.
+     *
+     * @param archive the archive to add positions to, or null to stop archiving
+     */
+    public void setArchive(PositionArchive.Writer archive) {
+        this.archive = archive;
+        this.codec = archive == null ? null : new PositionCodec(template.rows * template.cols, strategies.size());
+    }
+
+    /**
+     * Plays every game on a pool of the given size and writes each result as soon as it finishes.
+     *
+     * @param threads the number of games to play at once
+     * @param out     receives one CSV or JSON line per game
+     * @param json    true to write JSON Lines, false for CSV
+     * @return totals over all games
+     * @throws IOException if the results cannot be written
+     */
+    public Summary run(int threads, Writer out, boolean json) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<GameRecord> completed = new ExecutorCompletionService<>(pool);
+        Summary summary = new Summary(strategyNames.length);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < games; i++) {
+                int gameNumber = i;
+                completed.submit(() -> playGame(gameNumber));
+            }
+            if (!json) out.write(GameRecord.CSV_HEADER + "\n");
+            for (int i = 0; i < games; i++) {
+                GameRecord record = completed.take().get();
+                out.write((json ? record.toJson() : record.toCsv()) + "\n");
+                summary.add(record);
+                if (archive != null) archive.appendRecords(record.positions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            out.flush();
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Plays one game to the end on the calling thread.
+     *
+     * @param gameNumber the number of the game, used in the output
+     * @return the result of the game
+     */
+    public GameRecord playGame(int gameNumber) {
+        long start = System.nanoTime();
+        Board board = template.newBoard();
+        TurnStrategy[] gameStrategies = new TurnStrategy[strategies.size()];
+        for (int i = 0; i < gameStrategies.length; i++) {
+            gameStrategies[i] = strategies.get(i).get();
+        }
+        Game game = new Game(board, gameStrategies.length, gameStrategies);
+        Player[] players = game.getPlayers();
+        String[] gods = new String[players.length];
+        for (int i = 0; i < players.length; i++) {
+            gods[i] = players[i].getGod() == null ? "None" : players[i].getGod().getName();
+        }
+
+        boolean[] knockedOut = new boolean[players.length];
+        int playersLeft = players.length;
+        int winner = -1;
+        int turns = 0;
+        PositionCodec positionCodec = codec;
+        ByteBuffer positions = positionCodec == null ? null : ByteBuffer.allocate(positionCodec.recordSize() * 32);
+        while (turns < maxTurns) {
+            if (positionCodec != null) {
+                if (positions.remaining() < positionCodec.recordSize()) {
+                    positions = ByteBuffer.allocate(positions.capacity() * 2).put(positions.flip());
+                }
+                positionCodec.encode(game, positions);
+            }
+            Player player = game.getCurrentPlayer();
+            int index = player.playerID;
+            Turn turn = gameStrategies[index].chooseTurn(game, player);
+            if (turn == null) {
+                // A player who cannot move is out, and their workers leave the board
+                knockedOut[index] = true;
+                game.knockOut(player);
+                if (--playersLeft == 1) {
+                    winner = firstRemaining(knockedOut);
+                    break;
+                }
+            } else {
+                turn.play();
+                for (Worker worker : player.getWorkers()) {
+                    worker.resetHistory();
+                }
+                turns++;
+                if (turn.isWin()) {
+                    winner = index;
+                    break;
+                }
+            }
+            do {
+                game.nextTurn();
+            } while (knockedOut[game.getCurrentPlayer().playerID]);
+        }
+        GameRecord record = new GameRecord(gameNumber, strategyNames, gods, winner, turns, System.nanoTime() - start);
+        if (positions != null) record.positions = Arrays.copyOf(positions.array(), positions.position());
+        return record;
+    }
+
+    /**
+     * Runs a batch from the command line and prints the totals.
+     *
+     * @param args see the class description
+     * @throws IOException if the map cannot be read or the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int games = 100;
+        String[] names = {"random", "greedy"};
+        int threads = Runtime.getRuntime().availableProcessors();
+        long thinkMillis = 20;
+        int maxTurns = 500;
+        BoardTemplate template = BoardTemplate.forSize(5, 5);
+        String outPath = null;
+        String positionsPath = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--strategies" -> names = args[++i].split(",");
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--think-ms" -> thinkMillis = Long.parseLong(args[++i]);
+                case "--max-turns" -> maxTurns = Integer.parseInt(args[++i]);
+                case "--map" -> template = BoardTemplate.forMap(new File(args[++i]));
+                case "--out" -> outPath = args[++i];
+                case "--positions" -> positionsPath = args[++i];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SelfPlayRunner runner = new SelfPlayRunner(games, names, thinkMillis, template, maxTurns);
+        boolean json = outPath != null && outPath.endsWith(".jsonl");
+        PositionArchive.Writer archive = positionsPath == null ? null
+                : PositionArchive.Writer.create(Paths.get(positionsPath), template, names.length, PositionArchive.DEFAULT_BLOCK_RECORDS);
+        runner.setArchive(archive);
+        try (Writer out = new BufferedWriter(outPath == null ? new OutputStreamWriter(System.out) : new FileWriter(outPath))) {
+            Summary summary = runner.run(threads, out, json);
+            System.err.println(summary);
+        } finally {
+            if (archive != null) archive.close();
+        }
+    }
+
+    private static int firstRemaining(boolean[] knockedOut) {
+        for (int i = 0; i < knockedOut.length; i++) {
+            if (!knockedOut[i]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a factory for the named strategy. Search strategies keep state between calls,
+     * so every game gets its own instance.
+     */
+    private static Supplier<TurnStrategy> strategyFactory(String name, long thinkMillis) {
+        return switch (name) {
+            case "random" -> RandomStrategy::new;
+            case "greedy" -> GreedyStrategy::new;
+            case "search" -> () -> new AlphaBetaSearch(thinkMillis);
+            // Games already run one per thread, so each search plays out on its game's own thread
+            case "mcts" -> () -> MonteCarloTreeSearch.singleThreaded(thinkMillis);
+            default -> throw new IllegalArgumentException("Unknown strategy " + name);
+        };
+    }
+
+    /**
+     * The result of a single game.
+     */
+    public static class GameRecord {
+        static final String CSV_HEADER = "game,winner,winner_strategy,winner_god,turns,strategies,gods,millis";
+
+        /** The number of the game in the batch. */
+        public final int game;
+        /** The strategy of each player. */
+        public final String[] strategies;
+        /** The god of each player. */
+        public final String[] gods;
+        /** Index of the winning player, or -1 for a draw. */
+        public final int winner;
+        /** Number of turns played. */
+        public final int turns;
+        /** Time the game took, in nanoseconds. */
+        public final long elapsedNanos;
+        // Every position of the game encoded back to back, when archiving
+        byte[] positions;
+
+        GameRecord(int game, String[] strategies, String[] gods, int winner, int turns, long elapsedNanos) {
+            this.game = game;
+            this.strategies = strategies;
+            this.gods = gods;
+            this.winner = winner;
+            this.turns = turns;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the result as one CSV row, matching {@link #CSV_HEADER}
+         */
+        public String toCsv() {
+            return game + "," + winner + "," + (winner < 0 ? "" : strategies[winner]) + ","
+                    + (winner < 0 ? "" : gods[winner]) + "," + turns + ","
+                    + String.join(" vs ", strategies) + "," + String.join(" vs ", gods) + ","
+                    + elapsedNanos / 1_000_000;
+        }
+
+        /**
+         * @return the result as one JSON object on a single line
+         */
+        public String toJson() {
+            return "{\"game\":" + game + ",\"winner\":" + winner + ",\"turns\":" + turns
+                    + ",\"strategies\":" + jsonArray(strategies) + ",\"gods\":" + jsonArray(gods)
+                    + ",\"millis\":" + elapsedNanos / 1_000_000 + "}";
+        }
+
+        private static String jsonArray(String[] values) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) json.append(',');
+                json.append('"').append(values[i]).append('"');
+            }
+            return json.append(']').toString();
+        }
+    }
+
+    /**
+     * Win counts over a batch of games.
+     */
+    public static class Summary {
+        /** Wins for each player slot. */
+        public final int[] wins;
+        /** Games that hit the turn limit. */
+        public int draws;
+        /** Games played. */
+        public int games;
+        /** Turns played over all games. */
+        public long turns;
+        /** Wall clock time of the batch, in nanoseconds. */
+        public long elapsedNanos;
+
+        Summary(int players) {
+            wins = new int[players];
+        }
+
+        void add(GameRecord record) {
+            games++;
+            turns += record.turns;
+            if (record.winner < 0) {
+                draws++;
+            } else {
+                wins[record.winner]++;
+            }
+        }
+
+        /**
+         * @return games finished per hour at the measured rate
+         */
+        public double gamesPerHour() {
+            return elapsedNanos == 0 ? 0 : games * 3600e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%d games, %.1f turns/game, %.0f games/hour%n",
+                    games, games == 0 ? 0 : turns / (double) games, gamesPerHour()));
+            for (int i = 0; i < wins.length; i++) {
+                text.append(String.format("  player %d: %d wins%n", i + 1, wins[i]));
+            }
+            text.append(String.format("  draws: %d", draws));
+            return text.toString();
+        }
+    }
+}
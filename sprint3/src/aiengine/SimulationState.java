@@ -0,0 +1,170 @@
+package aiengine;
+
+import boardengine.Board;
+import boardengine.Coordinate;
+import boardengine.Space;
+import pieces.PieceRegistry;
+import pieces.Worker;
+import pieces.workerfeatures.WorkerAppearanceFactory;
+import playerelements.Player;
+import playerelements.gods.GodPower;
+
+/**
+ * A private copy of a position that a search thread can play turns on without touching the real
+ * game. Turns are applied as {@link Turn} codes through the board's undo journal, so a thread can
+ * play a line of turns and then rewind to where it started with {@link Board#undoTo(int)}.
+ * Each player keeps their god, whose win condition decides which turns win. Other god powers,
+ * such as extra moves or builds, are not simulated.
+ */
+class SimulationState {
+
+    /**
+     * Most turns a single player can have: two workers, each with eight moves and eight builds.
+     */
+    static final int MAX_TURNS = 2 * Board.MAX_NEIGHBOURS * Board.MAX_NEIGHBOURS;
+
+    final Board board;
+    final Player[] players;
+
+    // God power of each player, only its win condition is simulated
+    private final GodPower[] powers;
+    private final int[] moveCells = new int[Board.MAX_NEIGHBOURS];
+    private final int[] buildCells = new int[Board.MAX_NEIGHBOURS];
+
+    private SimulationState(Board board, Player[] players) {
+        this.board = board;
+        this.players = players;
+        powers = new GodPower[players.length];
+        for (int i = 0; i < players.length; i++) {
+            powers[i] = GodPower.of(players[i].getGod());
+        }
+    }
+
+    /**
+     * Copies the buildings and worker positions of a game into a new board, made from the same
+     * template, with its own players who have the same gods.
+     *
+     * @param source        the board to copy
+     * @param sourcePlayers the players in turn order
+     * @return the copy
+     */
+    static SimulationState copyOf(Board source, Player[] sourcePlayers) {
+        Board board = new Board(source.getTemplate());
+        Board.Dimensions dims = board.getDimensions();
+        for (int cell = 0; cell < dims.size(); cell++) {
+            Space space = source.getSpace(cell);
+            Coordinate position = board.getCoordinate(cell);
+            for (int height = 0; height < space.getHeight(); height++) {
+                board.buildPiece(PieceRegistry.nextPiece(height), position);
+            }
+        }
+
+        Player[] players = new Player[sourcePlayers.length];
+        for (int i = 0; i < players.length; i++) {
+            Player original = sourcePlayers[i];
+            players[i] = new Player(original.playerID, original.getGod(), board, WorkerAppearanceFactory.getAppearanceForPlayer(original.playerID));
+            Worker[] originalWorkers = original.getWorkers();
+            Worker[] workers = players[i].getWorkers();
+            for (int w = 0; w < workers.length; w++) {
+                Coordinate position = originalWorkers[w].getCoordinate();
+                if (position != null) {
+                    workers[w].setCoordinate(board.getCoordinate(position.row, position.col));
+                }
+            }
+        }
+        board.clearUndoJournal();
+        return new SimulationState(board, players);
+    }
+
+    /**
+     * Writes the turn codes of every legal turn for a player into the buffer. A player who can
+     * win this turn always does, so when a winning move exists only the winning moves are written.
+     * Moves that win by the player's god count as winning moves.
+     *
+     * @param playerIndex the player to move
+     * @param buffer      receives the codes, must hold {@link #MAX_TURNS}
+     * @return the number of codes written, 0 if the player cannot move
+     */
+    int generateTurnCodes(int playerIndex, int[] buffer) {
+        Worker[] workers = players[playerIndex].getWorkers();
+        GodPower power = powers[playerIndex];
+        int count = 0;
+        int wins = 0;
+        for (int w = 0; w < workers.length; w++) {
+            Worker worker = workers[w];
+            if (worker.getCoordinate() == null) continue;
+            int height = worker.getSpace().getHeight();
+            int moves = worker.getLegalMoveCells(board, moveCells);
+            for (int i = 0; i < moves; i++) {
+                int moveCell = moveCells[i];
+                if (power.isWin(height, board.getSpace(moveCell).getHeight())) {
+                    // Winning moves go to the front of the buffer
+                    buffer[wins++] = Turn.encode(w, moveCell, -1);
+                    continue;
+                }
+                if (wins > 0) continue;
+
+                int depth = board.getUndoDepth();
+                worker.createMove(board, moveCell).apply(board);
+                int builds = worker.getLegalBuildCells(board, buildCells);
+                for (int j = 0; j < builds; j++) {
+                    buffer[count++] = Turn.encode(w, moveCell, buildCells[j]);
+                }
+                board.undoTo(depth);
+            }
+        }
+        return wins > 0 ? wins : count;
+    }
+
+    /**
+     * Plays a turn code for a player. {@link Turn#PASS} takes the player's workers off the board,
+     * which is how a player without a legal turn leaves the game.
+     *
+     * @param playerIndex the player taking the turn
+     * @param code        the turn code
+     */
+    void applyTurn(int playerIndex, int code) {
+        Worker[] workers = players[playerIndex].getWorkers();
+        if (code == Turn.PASS) {
+            for (Worker worker : workers) {
+                Coordinate position = worker.getCoordinate();
+                if (position == null) continue;
+                worker.removeFromBoard();
+                board.recordChange(b -> worker.setCoordinate(position));
+            }
+            return;
+        }
+
+        Worker worker = workers[Turn.workerIndex(code)];
+        worker.createMove(board, Turn.moveCell(code)).apply(board);
+        int buildCell = Turn.buildCell(code);
+        if (buildCell >= 0) worker.createBuild(board, buildCell).apply(board);
+    }
+
+    /**
+     * Checks whether a player still has workers on the board.
+     *
+     * @param playerIndex the player to check
+     * @return true if the player is still in the game
+     */
+    boolean isInGame(int playerIndex) {
+        for (Worker worker : players[playerIndex].getWorkers()) {
+            if (worker.getCoordinate() != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the next player after the given one who is still in the game.
+     *
+     * @param playerIndex the current player
+     * @return the index of the next player, or -1 if nobody is left
+     */
+    int nextInGame(int playerIndex) {
+        for (int step = 1; step <= players.length; step++) {
+            int candidate = (playerIndex + step) % players.length;
+            if (isInGame(candidate)) return candidate;
+        }
+        return -1;
+    }
+}
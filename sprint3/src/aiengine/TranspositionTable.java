@@ -0,0 +1,125 @@
+package aiengine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size hash table of search results, shared between search threads without locks.
+ * Each entry is two words: the packed data and the position key XORed with that data.
+ * A torn write from two threads racing on the same slot leaves a pair that no longer XORs back
+ * to the key, so it simply reads as a miss instead of returning corrupt data.
+ */
+public class TranspositionTable {
+
+    /** The stored score is exact. */
+    public static final int EXACT = 0;
+    /** The stored score is a lower bound (the search failed high). */
+    public static final int LOWER_BOUND = 1;
+    /** The stored score is an upper bound (the search failed low). */
+    public static final int UPPER_BOUND = 2;
+
+    /** Returned by {@link #probe(long)} when the position is not stored. */
+    public static final long MISS = 0L;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    /**
+     * Creates a table using roughly the given amount of memory.
+     *
+     * @param megabytes size of the table in megabytes
+     */
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        // Two longs (16 bytes) per entry, rounded down to a power of two
+        int slots = Integer.highestOneBit((int) Math.min(bytes / 16, 1 << 28));
+        this.entries = new AtomicLongArray(slots * 2);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position key
+     * @return the packed entry, or {@link #MISS} if the position is not stored
+     */
+    public long probe(long key) {
+        int index = slot(key);
+        long data = entries.get(index + 1);
+        long check = entries.get(index);
+        return (check ^ data) == key ? data : MISS;
+    }
+
+    /**
+     * Stores a search result, keeping an existing entry for the same position if it was
+     * searched deeper.
+     *
+     * @param key      the position key
+     * @param score    the score found
+     * @param depth    how deep the position was searched
+     * @param flag     {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     * @param bestTurn index of the best turn in the generated turn list, or -1
+     */
+    public void store(long key, int score, int depth, int flag, int bestTurn) {
+        int index = slot(key);
+        long existing = probe(key);
+        if (existing != MISS && depth(existing) > depth) return;
+
+        long data = pack(score, depth, flag, bestTurn);
+        entries.set(index + 1, data);
+        entries.set(index, key ^ data);
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0L);
+        }
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the stored score
+     */
+    public static int score(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the stored search depth
+     */
+    public static int depth(long entry) {
+        return (int) ((entry >>> 24) & 0xFF);
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the stored bound type
+     */
+    public static int flag(long entry) {
+        return (int) ((entry >>> 16) & 0x3);
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the stored best turn index, or -1 if none
+     */
+    public static int bestTurn(long entry) {
+        return (int) (entry & 0xFFFF) - 1;
+    }
+
+    private int slot(long key) {
+        return (int) (key & mask) << 1;
+    }
+
+    private static long pack(int score, int depth, int flag, int bestTurn) {
+        // Bit 18 is always set so a stored entry can never equal MISS
+        return ((long) score << 32)
+                | ((long) (depth & 0xFF) << 24)
+                | (1L << 18)
+                | ((long) (flag & 0x3) << 16)
+                | ((bestTurn + 1) & 0xFFFF);
+    }
+}
@@ -0,0 +1,158 @@
+package aiengine;
+
+import actions.BuildAction;
+import actions.MoveAction;
+import boardengine.Board;
+import pieces.Worker;
+import playerelements.Player;
+
+/**
+ * A complete turn for one player: a move followed by a build.
+ * Turns that win the game on the move have no build.
+ */
+public class Turn {
+
+    /**
+     * Code of a player who has no legal turn and is knocked out of the game.
+     */
+    public static final int PASS = -1;
+
+    // Layout of a turn code: worker index, then move cell, then build cell
+    private static final int CELL_BITS = 10;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    // Build cell of a winning turn, which has no build
+    private static final int NO_BUILD = CELL_MASK;
+
+    /** The worker taking the turn. */
+    public final Worker worker;
+
+    /** The move made by the worker. */
+    public final MoveAction move;
+
+    /** The build made after the move, or null if the move wins the game. */
+    public final BuildAction build;
+
+    // Used to search the most promising turns first
+    int orderScore;
+
+    /**
+     * Creates a turn from a move and the build that follows it.
+     *
+     * @param worker the worker taking the turn
+     * @param move   the move made by the worker
+     * @param build  the build that follows, or null for a winning move
+     */
+    public Turn(Worker worker, MoveAction move, BuildAction build) {
+        this.worker = worker;
+        this.move = move;
+        this.build = build;
+    }
+
+    /**
+     * Checks whether this turn wins the game. Only a winning move, by height or by the player's
+     * god, ends a turn without a build.
+     *
+     * @return true if the move wins
+     */
+    public boolean isWin() {
+        return build == null;
+    }
+
+    /**
+     * Applies the turn through the board's undo journal, so it can be taken back with
+     * {@link Board#undoTo(int)}. Used while searching.
+     *
+     * @param board the board to apply the turn to
+     */
+    public void apply(Board board) {
+        move.apply(board);
+        if (build != null) build.apply(board);
+    }
+
+    /**
+     * Plays the turn for real, recording it in the worker's history.
+     */
+    public void play() {
+        worker.processTurn(move);
+        if (build != null) worker.processTurn(build);
+    }
+
+    /**
+     * @return a description of the move and build
+     */
+    @Override
+    public String toString() {
+        return move.getStringPrompt() + (build == null ? "" : " " + build.getStringPrompt());
+    }
+
+    // ##### Turn codes
+
+    /**
+     * Packs a turn into an int that does not refer to any board, so the same turn can be
+     * replayed on copies of a position.
+     *
+     * @param workerIndex index of the worker in {@link Player#getWorkers()}
+     * @param moveCell    the cell the worker moves to
+     * @param buildCell   the cell built on, or -1 for a winning move
+     * @return the turn code
+     */
+    public static int encode(int workerIndex, int moveCell, int buildCell) {
+        int build = buildCell < 0 ? NO_BUILD : buildCell;
+        return (workerIndex << (2 * CELL_BITS)) | (moveCell << CELL_BITS) | build;
+    }
+
+    /**
+     * @param code a turn code
+     * @return the index of the worker taking the turn
+     */
+    public static int workerIndex(int code) {
+        return code >>> (2 * CELL_BITS);
+    }
+
+    /**
+     * @param code a turn code
+     * @return the cell the worker moves to
+     */
+    public static int moveCell(int code) {
+        return (code >>> CELL_BITS) & CELL_MASK;
+    }
+
+    /**
+     * @param code a turn code
+     * @return the cell built on, or -1 for a winning move
+     */
+    public static int buildCell(int code) {
+        int build = code & CELL_MASK;
+        return build == NO_BUILD ? -1 : build;
+    }
+
+    /**
+     * Checks whether a turn code is a winning move.
+     *
+     * @param code a turn code
+     * @return true if the turn has no build because the move wins
+     */
+    public static boolean isWinCode(int code) {
+        return code != PASS && (code & CELL_MASK) == NO_BUILD;
+    }
+
+    /**
+     * Turns a turn code back into a playable turn on the given board.
+     *
+     * @param board  the board to create the actions on
+     * @param player the player taking the turn
+     * @param code   the turn code
+     * @return the turn
+     */
+    public static Turn decode(Board board, Player player, int code) {
+        Worker worker = player.getWorkers()[workerIndex(code)];
+        MoveAction move = worker.createMove(board, moveCell(code));
+        if (isWinCode(code)) return new Turn(worker, move, null);
+
+        int depth = board.getUndoDepth();
+        move.apply(board);
+        BuildAction build = worker.createBuild(board, buildCell(code));
+        board.undoTo(depth);
+        return new Turn(worker, move, build);
+    }
+}
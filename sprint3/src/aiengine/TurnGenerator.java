@@ -0,0 +1,102 @@
+package aiengine;
+
+import actions.BuildAction;
+import actions.MoveAction;
+import boardengine.Board;
+import boardengine.Space;
+import pieces.Dome;
+import pieces.Worker;
+import playerelements.Player;
+import playerelements.gods.GodPower;
+
+import java.util.ArrayList;
+
+/**
+ * Generates every legal (move, build) turn for a player. Uses the lean
+ * {@link Worker#getLegalMoveCells(Board, int[])} and {@link Worker#getLegalBuildCells(Board, int[])}
+ * generators so actions are only created for legal moves and builds.
+ * God powers and helpful tokens are not expanded here, apart from a god's win condition.
+ * Extra moves and builds cannot be written as a single move and build.
+ */
+public class TurnGenerator {
+
+    // Move ordering weights
+    private static final int WIN_SCORE = 1_000_000;
+    private static final int CLIMB_SCORE = 1_000;
+    private static final int BLOCKING_DOME_SCORE = 5_000;
+    private static final int GIFT_PENALTY = 2_000;
+
+    /**
+     * Generates all legal turns for a player, ordered with the most promising first:
+     * winning moves, then climbs, then builds that dome an opponent's way up.
+     *
+     * @param board  the game board
+     * @param player the player to move
+     * @return the ordered list of turns (empty if the player cannot move)
+     */
+    public static ArrayList<Turn> generateTurns(Board board, Player player) {
+        ArrayList<Turn> turns = new ArrayList<>();
+        int[] moveCells = new int[Board.MAX_NEIGHBOURS];
+        int[] buildCells = new int[Board.MAX_NEIGHBOURS];
+        GodPower power = GodPower.of(player.getGod());
+
+        for (Worker worker : player.getWorkers()) {
+            if (worker.getCoordinate() == null) continue;
+            int moves = worker.getLegalMoveCells(board, moveCells);
+            for (int i = 0; i < moves; i++) {
+                MoveAction move = worker.createMove(board, moveCells[i]);
+
+                if (power.isWin(move)) {
+                    Turn win = new Turn(worker, move, null);
+                    win.orderScore = WIN_SCORE;
+                    turns.add(win);
+                    continue;
+                }
+
+                int depth = board.getUndoDepth();
+                move.apply(board);
+                int builds = worker.getLegalBuildCells(board, buildCells);
+                for (int j = 0; j < builds; j++) {
+                    BuildAction build = worker.createBuild(board, buildCells[j]);
+                    Turn turn = new Turn(worker, move, build);
+                    turn.orderScore = move.heightDifference * CLIMB_SCORE + scoreBuild(board, build, player);
+                    turns.add(turn);
+                }
+                board.undoTo(depth);
+            }
+        }
+
+        turns.sort((a, b) -> Integer.compare(b.orderScore, a.orderScore));
+        return turns;
+    }
+
+    /**
+     * Rewards domes that cap a third level next to an opponent who could climb it,
+     * and penalises building a third level that an opponent could step onto.
+     */
+    private static int scoreBuild(Board board, BuildAction build, Player player) {
+        Space target = board.getSpace(build.position);
+        int opponentHeight = highestAdjacentOpponent(board, board.cellIndex(build.position), player);
+        if (opponentHeight < 2) return 0;
+
+        if (build.piece instanceof Dome) return BLOCKING_DOME_SCORE;
+        if (target.getHeight() == 2) return -GIFT_PENALTY;
+        return 0;
+    }
+
+    /**
+     * Finds the height of the highest opposing worker next to a cell.
+     *
+     * @return the height, or -1 if no opponent is adjacent
+     */
+    private static int highestAdjacentOpponent(Board board, int cell, Player player) {
+        int highest = -1;
+        for (int neighbour : board.getNeighbours(cell)) {
+            Space space = board.getSpace(neighbour);
+            if (space.hasWorker() && space.getWorker().ownerID != player.playerID) {
+                highest = Math.max(highest, space.getHeight());
+            }
+        }
+        return highest;
+    }
+}
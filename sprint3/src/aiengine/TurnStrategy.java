@@ -0,0 +1,19 @@
+package aiengine;
+
+import gameengine.Game;
+import playerelements.Player;
+
+/**
+ * Decides which turn a computer controlled player takes.
+ */
+public interface TurnStrategy {
+
+    /**
+     * Chooses the next turn for a player.
+     *
+     * @param game   the game being played
+     * @param player the player whose turn it is
+     * @return the chosen turn, or null if the player has no legal turn
+     */
+    Turn chooseTurn(Game game, Player player);
+}
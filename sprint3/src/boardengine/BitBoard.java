@@ -0,0 +1,430 @@
+package boardengine;
+
+/**
+ * Compact representation of the board state using packed {@code long} bitboards.
+ * Every playable cell is one bit, indexed as {@code row * cols + col}, so a 5x5 or
+ * 7x7 board fits in a single word per layer. Heights, domes, workers and the
+ * ocean/perimeter masks are all kept as separate layers, which turns move generation
+ * and win checks into a handful of bit operations.
+ */
+public class BitBoard {
+
+    /**
+     * Largest number of cells that fits in one word per layer.
+     */
+    public static final int MAX_CELLS = 64;
+
+    /**
+     * Height of a space that has been capped with a dome.
+     */
+    public static final int DOME_HEIGHT = 4;
+
+    /**
+     * Number of playable rows.
+     */
+    public final int rows;
+
+    /**
+     * Number of playable columns.
+     */
+    public final int cols;
+
+    // Private
+    // atLeast[h] holds every cell whose height is at least h (index 0 is unused)
+    private final long[] atLeast = new long[DOME_HEIGHT + 1];
+    private long[] playerWorkers = new long[2];
+    private long workers = 0L;
+    private long ocean = 0L;
+    private long perimeter = 0L;
+    private final long cells;
+    private final long[] neighbours;
+    private final long[] orthogonalNeighbours;
+
+    /**
+     * Creates an empty bitboard with every cell on ground level.
+     *
+     * @param rows number of playable rows
+     * @param cols number of playable columns
+     */
+    public BitBoard(int rows, int cols) {
+        if (!supports(rows, cols)) {
+            throw new IllegalArgumentException("Board of " + rows + "x" + cols + " does not fit in a bitboard");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        int size = rows * cols;
+        this.cells = size == MAX_CELLS ? -1L : (1L << size) - 1;
+        this.neighbours = new long[size];
+        this.orthogonalNeighbours = new long[size];
+        initNeighbours();
+        initPerimeter();
+    }
+
+    /**
+     * Creates a copy of another bitboard. The neighbour masks never change, so they are shared.
+     *
+     * @param other the bitboard to copy
+     */
+    public BitBoard(BitBoard other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.cells = other.cells;
+        this.neighbours = other.neighbours;
+        this.orthogonalNeighbours = other.orthogonalNeighbours;
+        System.arraycopy(other.atLeast, 0, atLeast, 0, atLeast.length);
+        this.playerWorkers = other.playerWorkers.clone();
+        this.workers = other.workers;
+        this.ocean = other.ocean;
+        this.perimeter = other.perimeter;
+    }
+
+    /**
+     * Checks whether a board of the given size can be represented as a bitboard.
+     *
+     * @param rows number of playable rows
+     * @param cols number of playable columns
+     * @return true if every cell fits in a single word
+     */
+    public static boolean supports(int rows, int cols) {
+        return rows > 0 && cols > 0 && rows * cols <= MAX_CELLS;
+    }
+
+    /**
+     * Converts a row and column into a cell index.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the cell index, or -1 if the position is off the board
+     */
+    public int cellIndex(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return -1;
+        return row * cols + col;
+    }
+
+    /**
+     * @param cell a cell index
+     * @return the row of the cell
+     */
+    public int rowOf(int cell) {
+        return cell / cols;
+    }
+
+    /**
+     * @param cell a cell index
+     * @return the column of the cell
+     */
+    public int colOf(int cell) {
+        return cell % cols;
+    }
+
+    /**
+     * Returns the total number of cells on the board.
+     *
+     * @return rows * cols
+     */
+    public int size() {
+        return rows * cols;
+    }
+
+    // ##### Queries
+
+    /**
+     * Returns the build height of a cell, where {@link #DOME_HEIGHT} means domed.
+     *
+     * @param cell the cell index
+     * @return the height of the cell
+     */
+    public int getHeight(int cell) {
+        long bit = 1L << cell;
+        int height = 0;
+        while (height < DOME_HEIGHT && (atLeast[height + 1] & bit) != 0) height++;
+        return height;
+    }
+
+    /**
+     * Returns every cell with at least the given height.
+     *
+     * @param height the minimum height (1 to {@link #DOME_HEIGHT})
+     * @return mask of matching cells
+     */
+    public long atLeast(int height) {
+        if (height <= 0) return cells;
+        if (height > DOME_HEIGHT) return 0L;
+        return atLeast[height];
+    }
+
+    /**
+     * Returns every cell that has exactly the given height.
+     *
+     * @param height the height to match
+     * @return mask of matching cells
+     */
+    public long exactly(int height) {
+        return atLeast(height) & ~atLeast(height + 1);
+    }
+
+    /**
+     * @return mask of all domed cells
+     */
+    public long domes() {
+        return atLeast[DOME_HEIGHT];
+    }
+
+    /**
+     * @return mask of every cell occupied by a worker
+     */
+    public long workers() {
+        return workers;
+    }
+
+    /**
+     * @param playerID the owning player
+     * @return mask of the cells occupied by that player's workers
+     */
+    public long workers(int playerID) {
+        return playerID < playerWorkers.length ? playerWorkers[playerID] : 0L;
+    }
+
+    /**
+     * @return mask of ocean cells inside the playable area
+     */
+    public long ocean() {
+        return ocean;
+    }
+
+    /**
+     * @return mask of cells that touch the ocean or the board edge orthogonally
+     */
+    public long perimeter() {
+        return perimeter;
+    }
+
+    /**
+     * @return mask of every cell on the board
+     */
+    public long cells() {
+        return cells;
+    }
+
+    /**
+     * @param cell the cell index
+     * @return mask of the (up to 8) on-board neighbours of the cell
+     */
+    public long neighbours(int cell) {
+        return neighbours[cell];
+    }
+
+    /**
+     * @param cell the cell index
+     * @return mask of the (up to 4) on-board orthogonal neighbours of the cell
+     */
+    public long orthogonalNeighbours(int cell) {
+        return orthogonalNeighbours[cell];
+    }
+
+    /**
+     * Checks whether a cell contains a worker.
+     *
+     * @param cell the cell index
+     * @return true if occupied
+     */
+    public boolean hasWorker(int cell) {
+        return (workers & (1L << cell)) != 0;
+    }
+
+    /**
+     * Checks whether a cell is ocean.
+     *
+     * @param cell the cell index
+     * @return true if ocean
+     */
+    public boolean isOcean(int cell) {
+        return (ocean & (1L << cell)) != 0;
+    }
+
+    // ##### Move generation
+
+    /**
+     * Returns every cell a worker standing on the given cell may legally move to.
+     * A worker can climb at most one level and cannot enter ocean, domes or occupied cells.
+     *
+     * @param cell the worker's cell
+     * @return mask of legal destinations
+     */
+    public long moveTargets(int cell) {
+        int height = getHeight(cell);
+        return neighbours[cell] & ~ocean & ~workers & ~atLeast(height + 2) & ~atLeast[DOME_HEIGHT];
+    }
+
+    /**
+     * Returns every cell a worker standing on the given cell may legally build on.
+     *
+     * @param cell the worker's cell
+     * @return mask of legal build locations
+     */
+    public long buildTargets(int cell) {
+        return neighbours[cell] & ~ocean & ~workers & ~atLeast[DOME_HEIGHT];
+    }
+
+    /**
+     * Returns the moves from the given cell that win the game by standing on a third level.
+     *
+     * @param cell the worker's cell
+     * @return mask of winning destinations
+     */
+    public long winningMoves(int cell) {
+        return moveTargets(cell) & exactly(3);
+    }
+
+    /**
+     * Checks whether any of the player's workers has a legal move.
+     *
+     * @param playerID the player to check
+     * @return true if the player can move
+     */
+    public boolean hasLegalMove(int playerID) {
+        long own = workers(playerID);
+        while (own != 0) {
+            int cell = Long.numberOfTrailingZeros(own);
+            if (moveTargets(cell) != 0) return true;
+            own &= own - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any of the player's workers can win this turn.
+     *
+     * @param playerID the player to check
+     * @return true if a winning move exists
+     */
+    public boolean hasWinningMove(int playerID) {
+        long own = workers(playerID);
+        while (own != 0) {
+            int cell = Long.numberOfTrailingZeros(own);
+            if (winningMoves(cell) != 0) return true;
+            own &= own - 1;
+        }
+        return false;
+    }
+
+    // ##### Mutation
+
+    /**
+     * Raises a cell by one level, capping it with a dome if it was already at level 3.
+     *
+     * @param cell the cell to build on
+     */
+    public void build(int cell) {
+        int height = getHeight(cell);
+        assert (height < DOME_HEIGHT);
+        atLeast[height + 1] |= 1L << cell;
+    }
+
+    /**
+     * Removes the top level of a cell. Reverse of {@link #build(int)}.
+     *
+     * @param cell the cell to lower
+     */
+    public void unbuild(int cell) {
+        int height = getHeight(cell);
+        assert (height > 0);
+        atLeast[height] &= ~(1L << cell);
+    }
+
+    /**
+     * Places a worker belonging to the given player on a cell.
+     *
+     * @param playerID the owning player
+     * @param cell     the cell to occupy
+     */
+    public void placeWorker(int playerID, int cell) {
+        long bit = 1L << cell;
+        assert ((workers & bit) == 0);
+        ensurePlayer(playerID);
+        playerWorkers[playerID] |= bit;
+        workers |= bit;
+    }
+
+    /**
+     * Removes a worker belonging to the given player from a cell.
+     *
+     * @param playerID the owning player
+     * @param cell     the cell to clear
+     */
+    public void removeWorker(int playerID, int cell) {
+        long bit = ~(1L << cell);
+        ensurePlayer(playerID);
+        playerWorkers[playerID] &= bit;
+        workers &= bit;
+    }
+
+    /**
+     * Moves a worker belonging to the given player between two cells.
+     *
+     * @param playerID the owning player
+     * @param from     the starting cell
+     * @param to       the destination cell
+     */
+    public void moveWorker(int playerID, int from, int to) {
+        removeWorker(playerID, from);
+        placeWorker(playerID, to);
+    }
+
+    /**
+     * Marks a cell as ocean and recomputes the perimeter mask.
+     *
+     * @param cell the cell to flood
+     */
+    public void setOcean(int cell) {
+        ocean |= 1L << cell;
+        initPerimeter();
+    }
+
+    // ##### Private
+
+    private void ensurePlayer(int playerID) {
+        if (playerID >= playerWorkers.length) {
+            long[] grown = new long[playerID + 1];
+            System.arraycopy(playerWorkers, 0, grown, 0, playerWorkers.length);
+            playerWorkers = grown;
+        }
+    }
+
+    /**
+     * Precomputes the neighbour masks for every cell, skipping anything off the board.
+     */
+    private void initNeighbours() {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                long all = 0L;
+                long orthogonal = 0L;
+                for (int dRow = -1; dRow <= 1; dRow++) {
+                    for (int dCol = -1; dCol <= 1; dCol++) {
+                        if (dRow == 0 && dCol == 0) continue; // skip self
+                        int neighbour = cellIndex(row + dRow, col + dCol);
+                        if (neighbour < 0) continue;
+                        all |= 1L << neighbour;
+                        if (dRow == 0 || dCol == 0) orthogonal |= 1L << neighbour;
+                    }
+                }
+                neighbours[row * cols + col] = all;
+                orthogonalNeighbours[row * cols + col] = orthogonal;
+            }
+        }
+    }
+
+    /**
+     * Marks every land cell that touches the ocean or the edge of the board orthogonally.
+     */
+    private void initPerimeter() {
+        perimeter = 0L;
+        for (int cell = 0; cell < size(); cell++) {
+            if (isOcean(cell)) continue;
+            boolean onEdge = Long.bitCount(orthogonalNeighbours[cell]) < 4;
+            if (onEdge || (orthogonalNeighbours[cell] & ocean) != 0) {
+                perimeter |= 1L << cell;
+            }
+        }
+    }
+}
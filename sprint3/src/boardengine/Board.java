@@ -1,21 +1,52 @@
 package boardengine;
 
+import actions.Action;
+import actions.ActionObserver;
 import pieces.Piece;
 import pieces.Worker;
 import pieces.colorablePiece;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.Scanner;
 /**
  * Represents the game board, which holds the spaces and handles logic
  * for movement, building, and board state.
+ * <p>
+ * The grid of {@link Space}s is the board's state. When the playable area fits in
+ * {@link BitBoard#MAX_CELLS} cells the board also keeps a {@link BitBoard} copy, updated by the
+ * same worker and build methods, which the move generators and height checks read. Larger boards
+ * have no bitboard and answer everything from the spaces.
  */
 public class Board {
+    /**
+     * Largest number of neighbours a cell can have.
+     */
+    public static final int MAX_NEIGHBOURS = 8;
+
     // Private
+    // Shared, immutable stand-in for every lookup that falls outside the padded grid
+    private static final Space OFF_BOARD = Space.createOffBoardSentinel();
     private Space[][] spaces;
     private final int padding = 1;
     private String boardName;
+    private final BoardTemplate template;
     private Dimensions dims;
+    // Copy of the heights and workers for the fast paths, null above BitBoard.MAX_CELLS cells
+    private BitBoard bitBoard;
+    // One shared Coordinate per padded cell, so coordinates can be compared by identity
+    private Coordinate[][] coordinates;
+    // Per-cell indices of the on-board neighbours, ocean padding excluded
+    private int[][] neighbourCells;
+    private int[][] orthogonalNeighbourCells;
+    // Incrementally maintained hash of heights, domes and worker placement
+    private Zobrist zobrist;
+    private long zobristKey = 0L;
+    // Changes applied through the make/unmake API, most recent last
+    private final ArrayList<Reversible> undoJournal = new ArrayList<>();
+    // Told about every action played for real, such as a game journal
+    private final ArrayList<ActionObserver> observers = new ArrayList<>();
 
 
     /**
@@ -27,29 +58,165 @@ public class Board {
     public Board(int playableWidth, int playableHeight){
         // By Omila for GUI board printing
         // Can be changed to allow for rectangle boards
-        this.dims = new Dimensions(playableWidth, playableHeight);
-        // Creates new spaces based on the width and height inputted
+        this(BoardTemplate.forSize(playableWidth, playableHeight));
+    }
+
+    /**
+     * Creates a board from a map layout, where 'O' is ocean and '.' is ground.
+     *
+     * @param layout the tile characters of the playable area, one array per row
+     */
+    public Board(char[][] layout){
+        this(new BoardTemplate("custom", layout));
+    }
+
+    /**
+     * Creates an empty board from a precompiled template. The terrain, neighbour tables and
+     * perimeter are taken from the template, so only the spaces themselves are created.
+     *
+     * @param template the map to use
+     */
+    public Board(BoardTemplate template){
+        this.template = template;
+        this.boardName = template.name;
+        this.dims = new Dimensions(template.rows, template.cols);
+        this.coordinates = template.coordinates;
+        this.neighbourCells = template.neighbourCells;
+        this.orthogonalNeighbourCells = template.orthogonalNeighbourCells;
+        // Mirror the board state in packed bitboards when it fits in a word
+        if (template.bitBoard != null) {
+            bitBoard = new BitBoard(template.bitBoard);
+        }
+
+        zobrist = Zobrist.forCells(dims.size());
         // +2 added for Ocean border
         spaces = new Space[dims.row + 2][dims.col + 2];
-
         initOceanPadding();
         initPlayableGround();
-        initPerimeter();
+    }
+
+    /**
+     * Reads the layout of a map file. The first line holds the number of rows and columns,
+     * followed by one line of tile characters per row.
+     *
+     * @param mapFile the map file to read
+     * @return the tile characters, one array per row
+     * @throws FileNotFoundException if the map file does not exist
+     */
+    public static char[][] readMapFile(File mapFile) throws FileNotFoundException {
+        try (Scanner scanner = new Scanner(mapFile)) {
+            int rows = scanner.nextInt();
+            int cols = scanner.nextInt();
+            char[][] layout = new char[rows][];
+            for (int row = 0; row < rows; row++) {
+                String line = scanner.next();
+                if (line.length() != cols) {
+                    throw new IllegalArgumentException("Row " + (row + 1) + " of " + mapFile.getName() + " should have " + cols + " tiles");
+                }
+                for (char tile : line.toCharArray()) {
+                    if (tile != 'O' && tile != '.') {
+                        throw new IllegalArgumentException("Unknown tile '" + tile + "' in " + mapFile.getName());
+                    }
+                }
+                layout[row] = line.toCharArray();
+            }
+            return layout;
+        }
     }
 
     /**
      * Gets the space at the given x and y coordinates.
-     * If out of bounds, returns a dummy Ocean tile instead.
+     * If out of bounds, returns a shared immutable Ocean tile instead. This lookup never allocates.
      *
      * @param x the row index
      * @param y the column index
      * @return the space at the specified location
      */
     public Space getSpace(int x, int y) {
-        if(x+1 < 0 || x + 1 >= spaces.length || y + 1 < 0 || y + 1 >= spaces[0].length){
-            return new Space('O', new Coordinate(x,y));
+        int row = x + padding;
+        int col = y + padding;
+        if ((row | col) < 0 || row >= spaces.length || col >= spaces[0].length) {
+            return OFF_BOARD;
         }
-        return spaces[x+1][y+1];
+        return spaces[row][col];
+    }
+
+    /**
+     * Gets the space at a playable cell index.
+     *
+     * @param cell the cell index, see {@link #cellIndex(Coordinate)}
+     * @return the space for that cell
+     */
+    public Space getSpace(int cell) {
+        return spaces[cell / dims.col + padding][cell % dims.col + padding];
+    }
+
+    /**
+     * Gets the shared coordinate instance for the given x and y values.
+     * Coordinates inside the padded grid are interned, so they can be compared with ==.
+     *
+     * @param x the row index
+     * @param y the column index
+     * @return the coordinate at that location
+     */
+    public Coordinate getCoordinate(int x, int y) {
+        if (!isInBounds(x, y)) return new Coordinate(x, y);
+        return coordinates[x + padding][y + padding];
+    }
+
+    /**
+     * Gets the shared coordinate instance of a playable cell.
+     *
+     * @param cell the cell index
+     * @return the coordinate of that cell
+     */
+    public Coordinate getCoordinate(int cell) {
+        return coordinates[cell / dims.col + padding][cell % dims.col + padding];
+    }
+
+    /**
+     * Converts a playable coordinate into a cell index ({@code row * columns + col}).
+     *
+     * @param coord a coordinate on the playable board
+     * @return the cell index
+     */
+    public int cellIndex(Coordinate coord) {
+        return coord.row * dims.col + coord.col;
+    }
+
+    /**
+     * Returns the cells surrounding a cell (diagonals included), skipping the ocean padding.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cell the cell index
+     * @return indices of the on-board neighbours
+     */
+    public int[] getNeighbours(int cell) {
+        return neighbourCells[cell];
+    }
+
+    /**
+     * Returns the cells directly up, down, left and right of a cell, skipping the ocean padding.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cell the cell index
+     * @return indices of the on-board orthogonal neighbours
+     */
+    public int[] getOrthogonalNeighbours(int cell) {
+        return orthogonalNeighbourCells[cell];
+    }
+
+    /**
+     * Checks whether the given x and y coordinates are inside the padded grid.
+     *
+     * @param x the row index
+     * @param y the column index
+     * @return true if {@link #getSpace(int, int)} would return a real space
+     */
+    public boolean isInBounds(int x, int y) {
+        int row = x + padding;
+        int col = y + padding;
+        return (row | col) >= 0 && row < spaces.length && col < spaces[0].length;
     }
 
     /**
@@ -63,6 +230,20 @@ public class Board {
     }
 
 
+    /**
+     * Places a worker onto the board for the first time.
+     *
+     * @param worker   The worker being placed
+     * @param position The location to place the worker
+     */
+    public void placeWorker(Worker worker, Coordinate position) {
+        getSpace(position).addWorker(worker);
+        zobristKey ^= zobrist.worker(cellIndex(position), worker.ownerID);
+        if (bitBoard != null) {
+            bitBoard.placeWorker(worker.ownerID, bitBoard.cellIndex(position.row, position.col));
+        }
+    }
+
     /**
      * Moves a worker from one coordinate to another.
      *
@@ -75,6 +256,11 @@ public class Board {
         assert (getSpace(ending).isTraversable());
         getSpace(starting).popWorker();
         getSpace(ending).addWorker(worker);
+        zobristKey ^= zobrist.worker(cellIndex(starting), worker.ownerID) ^ zobrist.worker(cellIndex(ending), worker.ownerID);
+        if (bitBoard != null) {
+            bitBoard.moveWorker(worker.ownerID, bitBoard.cellIndex(starting.row, starting.col),
+                    bitBoard.cellIndex(ending.row, ending.col));
+        }
     }
 
     /**
@@ -86,17 +272,182 @@ public class Board {
     public void buildPiece(colorablePiece piece, Coordinate position) {
         // Checks if the space is buildable
         assert (getSpace(position).isBuildable());
+        int height = getSpace(position).getHeight();
         getSpace(position).addPiece(piece);
+        zobristKey ^= zobrist.height(cellIndex(position), height) ^ zobrist.height(cellIndex(position), height + 1);
+        if (bitBoard != null) {
+            bitBoard.build(bitBoard.cellIndex(position.row, position.col));
+        }
     }
 
+    /**
+     * Removes the top piece at the given location. Reverse of {@link #buildPiece(colorablePiece, Coordinate)}.
+     *
+     * @param position where the piece was built
+     */
+    public void unbuildPiece(Coordinate position) {
+        int height = getSpace(position).getHeight();
+        assert (height > 0);
+        getSpace(position).removePiece();
+        zobristKey ^= zobrist.height(cellIndex(position), height) ^ zobrist.height(cellIndex(position), height - 1);
+        if (bitBoard != null) {
+            bitBoard.unbuild(bitBoard.cellIndex(position.row, position.col));
+        }
+    }
 
     /**
-     * Checks if a move from start to end is allowed based on tile properties.
+     * Removes a worker from the board. Reverse of {@link #placeWorker(Worker, Coordinate)}.
      *
-     * @param start the origin coordinate
-     * @param end   the destination coordinate
-     * @return true if the move is allowed
+     * @param worker   The worker being removed
+     * @param position The location of the worker
      */
+    public void removeWorker(Worker worker, Coordinate position) {
+        assert (worker.equals(getSpace(position).getWorker()));
+        getSpace(position).popWorker();
+        zobristKey ^= zobrist.worker(cellIndex(position), worker.ownerID);
+        if (bitBoard != null) {
+            bitBoard.removeWorker(worker.ownerID, bitBoard.cellIndex(position.row, position.col));
+        }
+    }
+
+    /**
+     * Gets the Zobrist hash of the heights, domes and workers on the board.
+     * Combine it with {@link Zobrist#sideToMove(int)} and {@link Zobrist#god(int, String)}
+     * to identify a full game position.
+     *
+     * @return the position key of the board
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Records a change that has just been applied so it can later be undone.
+     *
+     * @param change the applied change
+     */
+    public void recordChange(Reversible change) {
+        undoJournal.add(change);
+    }
+
+    /**
+     * Reverts the most recently recorded change.
+     *
+     * @return the change that was reverted
+     */
+    public Reversible undo() {
+        if (undoJournal.isEmpty()) {
+            throw new IllegalStateException("There are no changes to undo");
+        }
+        Reversible change = undoJournal.remove(undoJournal.size() - 1);
+        change.revert(this);
+        return change;
+    }
+
+    /**
+     * Reverts recorded changes until only the given number remain.
+     *
+     * @param depth the journal size to return to, see {@link #getUndoDepth()}
+     */
+    public void undoTo(int depth) {
+        while (undoJournal.size() > depth) {
+            undo();
+        }
+    }
+
+    /**
+     * Gets the number of recorded changes that can be undone.
+     *
+     * @return the size of the undo journal
+     */
+    public int getUndoDepth() {
+        return undoJournal.size();
+    }
+
+    /**
+     * Forgets every recorded change, making the current state permanent.
+     */
+    public void clearUndoJournal() {
+        undoJournal.clear();
+    }
+
+    /**
+     * Registers an observer to be told about every action played on this board.
+     *
+     * @param observer the observer to add
+     */
+    public void addActionObserver(ActionObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Stops telling an observer about played actions.
+     *
+     * @param observer the observer to remove
+     */
+    public void removeActionObserver(ActionObserver observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Tells every registered observer that an action has been played.
+     *
+     * @param action the action that was just processed
+     */
+    public void actionPlayed(Action action) {
+        for (int i = 0; i < observers.size(); i++) {
+            observers.get(i).actionPlayed(action);
+        }
+    }
+
+    /**
+     * Gets the build height at a coordinate, reading the bitboard when available.
+     *
+     * @param position the coordinate on the board
+     * @return the height of the space
+     */
+    public int getHeight(Coordinate position) {
+        int cell = bitBoard == null ? -1 : bitBoard.cellIndex(position.row, position.col);
+        if (cell < 0) return getSpace(position).getHeight();
+        return bitBoard.getHeight(cell);
+    }
+
+    /**
+     * Checks whether any of the player's workers has a legal move.
+     *
+     * @param playerID the player to check
+     * @return true if the player can still move
+     */
+    public boolean hasLegalMove(int playerID) {
+        if (bitBoard != null) return bitBoard.hasLegalMove(playerID);
+        for (int cell = 0; cell < dims.size(); cell++) {
+            Space space = getSpace(cell);
+            if (!space.hasWorker() || space.getWorker().ownerID != playerID) continue;
+            for (int neighbour : neighbourCells[cell]) {
+                Space end = getSpace(neighbour);
+                if (end.isTraversable() && end.getHeight() - space.getHeight() < 2) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the packed bitboard mirror of this board.
+     *
+     * @return the bitboard, or null if the board is too large to pack
+     */
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    /**
+     * Gets the template this board was created from.
+     *
+     * @return the board's map template
+     */
+    public BoardTemplate getTemplate() {
+        return template;
+    }
 
     /**
      * Gets the dimensions of the playable board.
@@ -139,38 +490,21 @@ public class Board {
                 if((x!=0 && x!=spaces.length-1) && y != 0){
                     y=spaces[x].length-1;
                 }
-                spaces[x][y] = new Space('O', new Coordinate(x-1, y-1));
+                spaces[x][y] = new Space('O', coordinates[x][y]);
             }
         }
     }
 
     /**
-     * Identifies the perimeter tiles for edge detection and visuals
-     */
-    private void initPerimeter(){
-        for(int x = 0; x < dims.row; x++){
-            for(int y = 0; y < dims.col; y++){
-                Coordinate[] adjacencies = spaces[x][y].coordinate.getOrthogonalAdjacencies();
-                for(Coordinate neighbour : adjacencies){
-                    if(getSpace(neighbour).getCreatePerimeter()){
-                        getSpace(x, y).setPerimeter();
-                        break;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Generates the playable ground for the game
+     * Generates the playable ground for the game from the template's terrain and perimeter
      */
     private void initPlayableGround(){
         for (int row = 1; row <= dims.row; row++){
             for (int col = 1; col <= dims.col; col++){
-                spaces[row][col] = new Space('.', new Coordinate(row - 1, col - 1));
+                Space space = new Space(template.getTile(row - 1, col - 1), coordinates[row][col]);
+                if (template.isPerimeter((row - 1) * dims.col + col - 1)) space.setPerimeter();
+                spaces[row][col] = space;
             }
         }
     }
-
-
-}
\ No newline at end of file
+}
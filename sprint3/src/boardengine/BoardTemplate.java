@@ -0,0 +1,214 @@
+package boardengine;
+
+import pieces.PieceRegistry;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything about a map that stays the same for the whole game: the terrain, the perimeter
+ * and the neighbour tables. A template is worked out once and never changes, so any number of
+ * boards can be created from it with {@link Board#Board(BoardTemplate)} without redoing the
+ * ocean padding, neighbour and perimeter passes. Templates for map files and plain sizes are
+ * cached and shared between every game that uses them.
+ */
+public class BoardTemplate {
+
+    private static final ConcurrentHashMap<String, BoardTemplate> maps = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, BoardTemplate> sizes = new ConcurrentHashMap<>();
+
+    /**
+     * Name of the map, or its size for boards without a map file.
+     */
+    public final String name;
+
+    /**
+     * Number of playable rows.
+     */
+    public final int rows;
+
+    /**
+     * Number of playable columns.
+     */
+    public final int cols;
+
+    // Shared with every board made from this template, none of them are ever changed
+    final Coordinate[][] coordinates;
+    final int[][] neighbourCells;
+    final int[][] orthogonalNeighbourCells;
+    // Null when the board is too large for a bitboard
+    final BitBoard bitBoard;
+    private final char[][] layout;
+    private final boolean[] perimeter;
+
+    /**
+     * Gets the shared template for a map file, reading the file the first time it is asked for.
+     *
+     * @param mapFile the map file
+     * @return the template
+     * @throws FileNotFoundException if the map file does not exist
+     */
+    public static BoardTemplate forMap(File mapFile) throws FileNotFoundException {
+        String key = mapFile.getAbsolutePath();
+        BoardTemplate template = maps.get(key);
+        if (template == null) {
+            template = new BoardTemplate(mapFile.getName(), Board.readMapFile(mapFile));
+            BoardTemplate existing = maps.putIfAbsent(key, template);
+            if (existing != null) template = existing;
+        }
+        return template;
+    }
+
+    /**
+     * Gets the shared template for an all-ground board of the given size.
+     *
+     * @param rows number of playable rows
+     * @param cols number of playable columns
+     * @return the template
+     */
+    public static BoardTemplate forSize(int rows, int cols) {
+        return sizes.computeIfAbsent(rows * 1_000 + cols, key -> new BoardTemplate(rows + "x" + cols, blankLayout(rows, cols)));
+    }
+
+    /**
+     * Creates a template from a map layout, where 'O' is ocean and '.' is ground.
+     * The layout is copied, so it can be changed afterwards without affecting the template.
+     *
+     * @param name   the name of the map
+     * @param layout the tile characters of the playable area, one array per row
+     */
+    public BoardTemplate(String name, char[][] layout) {
+        this.name = name;
+        this.rows = layout.length;
+        this.cols = layout[0].length;
+        this.layout = new char[rows][];
+        for (int row = 0; row < rows; row++) {
+            if (layout[row].length != cols) {
+                throw new IllegalArgumentException("Every row of " + name + " should have " + cols + " tiles");
+            }
+            for (char tile : layout[row]) {
+                if (PieceRegistry.terrain(tile) == null) {
+                    throw new IllegalArgumentException("Unknown tile '" + tile + "' in " + name);
+                }
+            }
+            this.layout[row] = layout[row].clone();
+        }
+
+        coordinates = initCoordinates();
+        neighbourCells = new int[rows * cols][];
+        orthogonalNeighbourCells = new int[rows * cols][];
+        initNeighbourTables();
+        perimeter = initPerimeter();
+        bitBoard = initBitBoard();
+    }
+
+    /**
+     * Gets the terrain character of a playable cell.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return 'O' for ocean or '.' for ground
+     */
+    public char getTile(int row, int col) {
+        return layout[row][col];
+    }
+
+    /**
+     * Checks whether a cell touches the ocean or the edge of the board orthogonally.
+     *
+     * @param cell the cell index
+     * @return true if the cell is on the perimeter
+     */
+    public boolean isPerimeter(int cell) {
+        return perimeter[cell];
+    }
+
+    /**
+     * Creates a new board with this template's terrain and no buildings or workers.
+     *
+     * @return the new board
+     */
+    public Board newBoard() {
+        return new Board(this);
+    }
+
+    // ##### Private
+
+    private static char[][] blankLayout(int rows, int cols) {
+        char[][] layout = new char[rows][cols];
+        for (char[] row : layout) {
+            Arrays.fill(row, '.');
+        }
+        return layout;
+    }
+
+    /**
+     * Creates the shared coordinate for every cell of the grid, including the ocean padding
+     */
+    private Coordinate[][] initCoordinates() {
+        Coordinate[][] grid = new Coordinate[rows + 2][cols + 2];
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[x].length; y++) {
+                grid[x][y] = new Coordinate(x - 1, y - 1);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Precomputes the neighbour index tables for every playable cell, trimmed to on-board cells
+     */
+    private void initNeighbourTables() {
+        int[] buffer = new int[Board.MAX_NEIGHBOURS];
+        int[] orthogonalBuffer = new int[4];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int count = 0;
+                int orthogonalCount = 0;
+                for (int rowAdj = row - 1; rowAdj <= row + 1; rowAdj++) {
+                    for (int colAdj = col - 1; colAdj <= col + 1; colAdj++) {
+                        if (rowAdj == row && colAdj == col) continue; // skip self
+                        if (rowAdj < 0 || rowAdj >= rows || colAdj < 0 || colAdj >= cols) continue;
+                        int neighbour = rowAdj * cols + colAdj;
+                        buffer[count++] = neighbour;
+                        if (rowAdj == row || colAdj == col) orthogonalBuffer[orthogonalCount++] = neighbour;
+                    }
+                }
+                int cell = row * cols + col;
+                neighbourCells[cell] = Arrays.copyOf(buffer, count);
+                orthogonalNeighbourCells[cell] = Arrays.copyOf(orthogonalBuffer, orthogonalCount);
+            }
+        }
+    }
+
+    /**
+     * Marks every cell that borders the ocean padding or an ocean tile orthogonally
+     */
+    private boolean[] initPerimeter() {
+        boolean[] result = new boolean[rows * cols];
+        for (int cell = 0; cell < result.length; cell++) {
+            boolean onPerimeter = orthogonalNeighbourCells[cell].length < 4;
+            for (int neighbour : orthogonalNeighbourCells[cell]) {
+                if (PieceRegistry.terrain(layout[neighbour / cols][neighbour % cols]).createPerimeter) {
+                    onPerimeter = true;
+                    break;
+                }
+            }
+            result[cell] = onPerimeter;
+        }
+        return result;
+    }
+
+    private BitBoard initBitBoard() {
+        if (!BitBoard.supports(rows, cols)) return null;
+        BitBoard empty = new BitBoard(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (layout[row][col] == 'O') empty.setOcean(empty.cellIndex(row, col));
+            }
+        }
+        return empty;
+    }
+}
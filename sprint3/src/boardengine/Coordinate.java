@@ -3,6 +3,7 @@ package boardengine;
 /**
  * Represents a coordinate on the board using row and column values.
  * Used to identify tile positions and calculate adjacent tiles.
+ * Coordinates handed out by a {@link Board} are shared per cell, so they can be compared with ==.
  */
 public class Coordinate {
 
@@ -29,6 +30,7 @@ public class Coordinate {
 
     /**
      * Returns all 8 tiles surrounding this coordinate (diagonals included).
+     * Allocates new coordinates on every call; prefer {@link Board#getNeighbours(int)} in hot paths.
      *
      * @return an array of all adjacent coordinates
      */
@@ -0,0 +1,15 @@
+package boardengine;
+
+/**
+ * A change to the board that can be undone. Changes are recorded on the board's undo journal
+ * when they are applied, and {@link Board#undo()} reverts them in reverse order.
+ */
+public interface Reversible {
+
+    /**
+     * Restores the board to the state it was in before this change was applied.
+     *
+     * @param board the board the change was applied to
+     */
+    void revert(Board board);
+}
@@ -2,8 +2,6 @@ package boardengine;
 
 import pieces.*;
 
-import javax.swing.*;
-import java.awt.*;
 import java.util.Stack;
 
 /**
@@ -21,7 +19,7 @@ public class Space {
     private Worker worker;
     private Stack<colorablePiece> pieces = new Stack<>();
     private boolean perimeter = false;
-    JButton tileButton;
+    private boolean sealed = false;
 
     /**
      * Creates a space with the given type and position.
@@ -34,18 +32,26 @@ public class Space {
 
         switch (character) {
             case 'O':
-                addPiece(new Ocean());
+                addPiece(PieceRegistry.ocean());
                 break;
             case '.':
-                addPiece(new Ground());
+                addPiece(PieceRegistry.ground());
                 break;
             default:
                 assert (false); // invalid character
         }
+    }
 
-        this.tileButton = new JButton();
-        refreshTile();
-
+    /**
+     * Creates the ocean space returned for off-board lookups. It is sealed so that it can be
+     * shared between every board without any caller being able to change it.
+     *
+     * @return an immutable ocean space
+     */
+    static Space createOffBoardSentinel() {
+        Space sentinel = new Space('O', new Coordinate(Integer.MIN_VALUE, Integer.MIN_VALUE));
+        sentinel.sealed = true;
+        return sentinel;
     }
 
     /**
@@ -54,6 +60,7 @@ public class Space {
      * @param piece the piece to add
      */
     public void addPiece(colorablePiece piece) {
+        checkNotSealed();
         pieces.push(piece);
     }
 
@@ -61,6 +68,7 @@ public class Space {
      * Removes the top piece from the space.
      */
     public void removePiece() {
+        checkNotSealed();
         pieces.pop();
     }
 
@@ -70,6 +78,7 @@ public class Space {
      * @return the same space (for chaining if needed)
      */
     public Space setPerimeter() {
+        checkNotSealed();
         perimeter = true;
         return this;
     }
@@ -171,6 +180,7 @@ public class Space {
      * @param worker the worker to add
      */
     public void addWorker(Worker worker) {
+        checkNotSealed();
         assert (this.worker == null);
         this.worker = worker;
     }
@@ -203,31 +213,13 @@ public class Space {
         return getTopPiece().createPerimeter;
     }
 
-    public void refreshTile(){
-        this.tileButton = new JButton();
-        tileButton.setPreferredSize(new Dimension(80,80));
-        tileButton.setEnabled(true);
-        tileButton.setBackground(getTopPiece().getTileColor());
-        if(getHeight() > 0){ tileButton.setText(String.valueOf(getHeight())); }
-
-        if (hasWorker()) {
-            tileButton.setIcon(getWorker().getIcon());
-            tileButton.setHorizontalAlignment(SwingConstants.CENTER);
-            tileButton.setVerticalAlignment(SwingConstants.CENTER);
-            tileButton.setDisabledIcon(getWorker().getIcon());
+    // ##### PRIVATE
+    private void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("The off-board ocean space cannot be modified");
         }
     }
 
-    /**
-     * Visually marks the worker if it belongs to the current player.
-     */
-
-
-    public JButton getTileButton() {
-        return tileButton;
-    }
-
-    // ##### PRIVATE
     private colorablePiece getTopPiece(){
         assert(pieces.peek() != null);
         return pieces.peek();
@@ -0,0 +1,117 @@
+package boardengine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random keys used to hash board positions (Zobrist hashing). A position's key is the XOR of
+ * the keys of every feature it contains, so applying or undoing a change only needs one or two
+ * XORs. Keys are generated from a fixed seed and shared between all boards of the same size,
+ * so the same position always gets the same key.
+ */
+public class Zobrist {
+
+    /**
+     * Highest number of players that can be told apart by the keys.
+     */
+    public static final int MAX_PLAYERS = 4;
+
+    private static final long SEED = 0x5A4E0B15L;
+    private static final int HEIGHTS = BitBoard.DOME_HEIGHT + 1;
+    private static final ConcurrentHashMap<Integer, Zobrist> tables = new ConcurrentHashMap<>();
+    private static final long[] sideToMoveKeys = new long[MAX_PLAYERS];
+    private static final long[] rootKeys = new long[MAX_PLAYERS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            sideToMoveKeys[i] = random.nextLong();
+            rootKeys[i] = random.nextLong();
+        }
+    }
+
+    private final long[] heightKeys;
+    private final long[] workerKeys;
+
+    /**
+     * Gets the shared key table for boards with the given number of cells.
+     *
+     * @param cells number of playable cells
+     * @return the key table
+     */
+    public static Zobrist forCells(int cells) {
+        return tables.computeIfAbsent(cells, Zobrist::new);
+    }
+
+    private Zobrist(int cells) {
+        SplittableRandom random = new SplittableRandom(SEED ^ cells);
+        heightKeys = new long[cells * HEIGHTS];
+        workerKeys = new long[cells * MAX_PLAYERS];
+        // Ground level is left at zero so an empty board hashes to zero
+        for (int cell = 0; cell < cells; cell++) {
+            for (int height = 1; height < HEIGHTS; height++) {
+                heightKeys[cell * HEIGHTS + height] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < workerKeys.length; i++) {
+            workerKeys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Key for a cell standing at a given height (a height of 4 means domed).
+     *
+     * @param cell   the cell index
+     * @param height the height of the cell
+     * @return the key
+     */
+    public long height(int cell, int height) {
+        return heightKeys[cell * HEIGHTS + height];
+    }
+
+    /**
+     * Key for a worker of the given player standing on a cell.
+     *
+     * @param cell     the cell index
+     * @param playerID the owning player
+     * @return the key
+     */
+    public long worker(int cell, int playerID) {
+        return workerKeys[cell * MAX_PLAYERS + playerID % MAX_PLAYERS];
+    }
+
+    /**
+     * Key for the player whose turn it is.
+     *
+     * @param playerIndex position of the player in turn order
+     * @return the key
+     */
+    public static long sideToMove(int playerIndex) {
+        return sideToMoveKeys[playerIndex % MAX_PLAYERS];
+    }
+
+    /**
+     * Key for the player a search is being run for, used when scores depend on who is searching.
+     *
+     * @param playerIndex position of the player in turn order
+     * @return the key
+     */
+    public static long searchRoot(int playerIndex) {
+        return rootKeys[playerIndex % MAX_PLAYERS];
+    }
+
+    /**
+     * Key for a god being assigned to a player.
+     *
+     * @param playerIndex position of the player in turn order
+     * @param godName     name of the god
+     * @return the key
+     */
+    public static long god(int playerIndex, String godName) {
+        // Mix the name hash so that different gods and seats give unrelated keys
+        long z = godName.hashCode() * 0x9E3779B97F4A7C15L + playerIndex + SEED;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,234 @@
+package gameengine;
+
+import aiengine.AlphaBetaSearch;
+import aiengine.Turn;
+import aiengine.TurnGenerator;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import boardengine.Coordinate;
+import boardengine.Space;
+import pieces.Worker;
+import playerelements.Player;
+import playerelements.gods.GodPower;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works out hints about a position on a background thread so the gui never waits for them.
+ * Each request copies the position, then a worker thread finds the legal turns, the spaces
+ * opponents could win on next turn and the turn a search would play. Part way through a turn,
+ * after the player has moved, only the threats are worked out.
+ * Results are handed to the listeners through a publisher such as
+ * {@code SwingUtilities::invokeLater}, first without the suggested turn and then again once the
+ * search finishes.
+ * <p>
+ * A new position cancels the analysis of the last one. Results for a position that has since
+ * changed are never published.
+ */
+public class BackgroundAnalysis {
+
+    /**
+     * What is known about a position.
+     */
+    public static class Analysis {
+        /** Zobrist key of the analysed position, see {@link Game#getPositionKey()}. */
+        public final long positionKey;
+        /** Index of the player to move. */
+        public final int player;
+        /** Number of full turns the player to move can take, or -1 part way through a turn. */
+        public final int legalTurns;
+        /** Spaces the player to move can win on straight away, empty part way through a turn. */
+        public final List<Coordinate> wins;
+        /** Spaces an opponent could move onto to win on their next turn. */
+        public final List<Coordinate> threats;
+        /** Suggested turn: the worker's space, where it moves and where it builds, or null. */
+        public final Coordinate hintWorker;
+        public final Coordinate hintMove;
+        public final Coordinate hintBuild;
+
+        Analysis(long positionKey, int player, int legalTurns, List<Coordinate> wins, List<Coordinate> threats,
+                 Coordinate hintWorker, Coordinate hintMove, Coordinate hintBuild) {
+            this.positionKey = positionKey;
+            this.player = player;
+            this.legalTurns = legalTurns;
+            this.wins = wins;
+            this.threats = threats;
+            this.hintWorker = hintWorker;
+            this.hintMove = hintMove;
+            this.hintBuild = hintBuild;
+        }
+
+        /**
+         * @return true if a suggested turn has been found
+         */
+        public boolean hasHint() {
+            return hintMove != null;
+        }
+
+        private Analysis withHint(Turn turn) {
+            if (turn == null) return this;
+            return new Analysis(positionKey, player, legalTurns, wins, threats, turn.move.getMoveStart(),
+                    turn.move.getMoveEnd(), turn.build == null ? null : turn.build.position);
+        }
+    }
+
+    /**
+     * Receives the results of background analysis.
+     */
+    public interface Listener {
+
+        /**
+         * Called through the publisher whenever something new is known about the current position.
+         *
+         * @param analysis the analysis, possibly still without a suggested turn
+         */
+        void analysisReady(Analysis analysis);
+    }
+
+    private final Executor publisher;
+    private final long hintMillis;
+    private final ThreadPoolExecutor executor;
+    private final List<Listener> listeners = new ArrayList<>();
+    // Bumped for every new request, so results from an older request can be recognised
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> running;
+    private long requestedKey;
+
+    /**
+     * Creates an analyser with one worker thread, which stops when it has been idle for a while.
+     *
+     * @param publisher  runs the listener calls, such as {@code SwingUtilities::invokeLater}
+     * @param hintMillis how long to search for a suggested turn
+     */
+    public BackgroundAnalysis(Executor publisher, long hintMillis) {
+        this.publisher = publisher;
+        this.hintMillis = hintMillis;
+        executor = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "santorini-analysis");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a listener for analysis results.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts analysing the game's current position, cancelling the analysis of any other
+     * position. Asking again for the position already being analysed, or asking after
+     * {@link #shutdown()}, does nothing. Boards too large for a {@link PositionCodec} are not
+     * analysed, so nothing is published for them. Must be called from the thread that changes
+     * the game.
+     *
+     * @param game      the game to analyse
+     * @param turnStart whether the player to move has yet to move, so turns can be suggested
+     */
+    public void analyse(Game game, boolean turnStart) {
+        if (executor.isShutdown()) return;
+        long key = game.getPositionKey() ^ (turnStart ? 1 : 0);
+        if (running != null && key == requestedKey) return;
+        cancel();
+        int cells = game.getBoard().getDimensions().size();
+        if (cells > PositionCodec.MAX_CELLS) return;
+        requestedKey = key;
+
+        // The worker thread only ever sees this copy of the position
+        PositionCodec codec = new PositionCodec(cells, game.getPlayers().length);
+        ByteBuffer position = ByteBuffer.allocate(codec.recordSize());
+        codec.encode(game, position);
+        long request = generation.get();
+        running = executor.submit(() -> run(codec, position, game.getBoard().getTemplate(), turnStart, request));
+    }
+
+    /**
+     * Cancels the current analysis. Nothing more is published until the next request.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        if (running != null) running.cancel(true);
+        running = null;
+    }
+
+    /**
+     * Cancels the current analysis and stops the worker thread.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    // ##### Private
+
+    private void run(PositionCodec codec, ByteBuffer position, BoardTemplate template, boolean turnStart, long request) {
+        Game game = codec.decode(position, 0, template);
+        Player player = game.getCurrentPlayer();
+        ArrayList<Turn> turns = turnStart ? TurnGenerator.generateTurns(game.getBoard(), player) : new ArrayList<>();
+
+        List<Coordinate> wins = new ArrayList<>();
+        for (Turn turn : turns) {
+            if (turn.isWin() && !wins.contains(turn.move.getMoveEnd())) wins.add(turn.move.getMoveEnd());
+        }
+        Analysis analysis = new Analysis(game.getPositionKey(), player.playerID, turnStart ? turns.size() : -1,
+                Collections.unmodifiableList(wins), Collections.unmodifiableList(findThreats(game, player)),
+                null, null, null);
+        publish(analysis, request);
+
+        if (turns.isEmpty() || Thread.currentThread().isInterrupted()) return;
+        AlphaBetaSearch search = new AlphaBetaSearch(hintMillis);
+        Turn best = search.search(game.getBoard(), game.getPlayers(), player).bestTurn;
+        if (!Thread.currentThread().isInterrupted()) publish(analysis.withHint(best), request);
+    }
+
+    /**
+     * Finds the spaces an opponent's worker could move onto to win next turn, unless something
+     * is built there first: a level 3 space one step up, or any space that wins by the
+     * opponent's god. Other god powers are ignored.
+     */
+    private static List<Coordinate> findThreats(Game game, Player toMove) {
+        Board board = game.getBoard();
+        List<Coordinate> threats = new ArrayList<>();
+        for (Player opponent : game.getPlayers()) {
+            if (opponent == toMove) continue;
+            GodPower power = GodPower.of(opponent.getGod());
+            for (Worker worker : opponent.getWorkers()) {
+                if (worker.getCoordinate() == null) continue;
+                int height = board.getHeight(worker.getCoordinate());
+                for (int neighbour : board.getNeighbours(board.cellIndex(worker.getCoordinate()))) {
+                    Space space = board.getSpace(neighbour);
+                    if (space.getHeight() - height > 1 || !space.isTraversable()) continue;
+                    if (power.isWin(height, space.getHeight()) && !threats.contains(space.coordinate)) {
+                        threats.add(space.coordinate);
+                    }
+                }
+            }
+        }
+        return threats;
+    }
+
+    private void publish(Analysis analysis, long request) {
+        if (generation.get() != request) return;
+        publisher.execute(() -> {
+            // Checked again here in case a new request came in while this was queued
+            if (generation.get() != request) return;
+            for (Listener listener : listeners) {
+                listener.analysisReady(analysis);
+            }
+        });
+    }
+}
@@ -1,25 +1,25 @@
 package gameengine;
 
 import actions.Action;
+import aiengine.ComputerPlayer;
+import aiengine.TurnStrategy;
 import boardengine.Board;
 import boardengine.Coordinate;
 import boardengine.Space;
-import gui.Main;
+import boardengine.Zobrist;
 import pieces.TileType;
 import pieces.Worker;
 import pieces.workerfeatures.WorkerAppearanceFactory;
-import playerelements.gods.Artemis;
-import playerelements.gods.Demeter;
 import playerelements.gods.God;
 import playerelements.Player;
-import playerelements.gods.Zeus;
+import playerelements.gods.GodRegistry;
 
-import javax.swing.*;
-import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Main engine for running the game.
@@ -30,7 +30,8 @@ public class Game {
     private final Board board;
     private Player[] players;
     private int nextPlayer = 0;
-    private final Main frame;
+    private final List<GameListener> listeners = new ArrayList<>();
+    private GameJournal journal;
 
     /**
      * Sets up a new game with the given board and number of players.
@@ -39,16 +40,42 @@ public class Game {
      * @param board The game board
      * @param numberOfPlayers Number of players participating
      */
-    public Game(Board board, int numberOfPlayers, Main frame) {
+    public Game(Board board, int numberOfPlayers) {
+        this(board, numberOfPlayers, new TurnStrategy[numberOfPlayers]);
+    }
+
+    /**
+     * Sets up a new game where some players are controlled by the computer.
+     *
+     * @param board The game board
+     * @param numberOfPlayers Number of players participating
+     * @param computerStrategies Strategy for each computer player, or null for a human player
+     */
+    public Game(Board board, int numberOfPlayers, TurnStrategy[] computerStrategies) {
+        this(board, Arrays.copyOf(initGods(), numberOfPlayers), computerStrategies);
+        addRandomlyPlacedWorkers();
+    }
+
+    /**
+     * Sets up a game with the given gods without placing any workers, used when restoring a
+     * saved game. Player 0 moves first.
+     *
+     * @param board The game board
+     * @param gods The god of each player, in turn order
+     * @param computerStrategies Strategy for each computer player, or null for a human player
+     */
+    public Game(Board board, God[] gods, TurnStrategy[] computerStrategies) {
         this.board = board;
-        this.frame = frame;
-        God[] gods = initGods();
-        players = new Player[numberOfPlayers];
+        players = new Player[gods.length];
 
-        for (int i = 0; i < numberOfPlayers; i++) {
-            players[i] = new Player(i, gods[i], board, WorkerAppearanceFactory.getAppearanceForPlayer(i));
+        for (int i = 0; i < gods.length; i++) {
+            if (i < computerStrategies.length && computerStrategies[i] != null) {
+                players[i] = new ComputerPlayer(i, gods[i], board, WorkerAppearanceFactory.getAppearanceForPlayer(i),
+                        this, computerStrategies[i]);
+            } else {
+                players[i] = new Player(i, gods[i], board, WorkerAppearanceFactory.getAppearanceForPlayer(i));
+            }
         }
-        addRandomlyPlacedWorkers();
     }
 
     public Player[] getPlayers() {
@@ -64,27 +91,24 @@ public class Game {
         System.out.println("Congratulations for winning " + winner.name + "!");
     }
 
-    public void showVictoryDialog(String winnerName) {
-        SwingUtilities.invokeLater(() -> {
-            int choice = JOptionPane.showOptionDialog(
-                    null,
-                    winnerName + " WINS!!! \nWhat would you like to do?",
-                    "Victory!",
-                    JOptionPane.DEFAULT_OPTION,
-                    JOptionPane.INFORMATION_MESSAGE,
-                    null,
-                    new String[]{"Exit to Menu", "Close Game"},
-                    "Exit to Menu"
-            );
-
-            if (choice == 0) {
-                SwingUtilities.invokeLater(() -> {
-                    frame.showPanel("MainMenu");
-                });
-            } else if (choice == 1) {
-                System.exit(0);
-            }
-        });
+    /**
+     * Registers a listener to be told about the outcome of the game.
+     *
+     * @param listener the listener to add
+     */
+    public void addGameListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Announces the winner of the game to every registered listener.
+     *
+     * @param winnerName the display name of the winner
+     */
+    public void declareWinner(String winnerName) {
+        for (GameListener listener : listeners) {
+            listener.onGameWon(winnerName);
+        }
     }
 
 
@@ -106,14 +130,77 @@ public class Game {
         return players[nextPlayer];
     }
 
+    /**
+     * Returns a hash identifying the full game position: the board, the player to move and
+     * the gods assigned to each player.
+     *
+     * @return the Zobrist key of the position
+     */
+    public long getPositionKey() {
+        long key = board.getZobristKey() ^ Zobrist.sideToMove(nextPlayer);
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].getGod() != null) key ^= Zobrist.god(i, players[i].getGod().getName());
+        }
+        return key;
+    }
+
+    /**
+     * Makes the given player the one whose turn it is, used when restoring a saved game.
+     *
+     * @param playerIndex the index of the player in {@link #getPlayers()}
+     */
+    public void setCurrentPlayer(int playerIndex) {
+        if (playerIndex < 0 || playerIndex >= players.length) {
+            throw new IllegalArgumentException("No player " + playerIndex + " in this game");
+        }
+        nextPlayer = playerIndex;
+    }
+
     /**
      * Moves to the next player's turn.
      */
     public void nextTurn() {
+        Player ended = players[nextPlayer];
         nextPlayer++;
         if (nextPlayer >= players.length) {
             nextPlayer = 0;
         }
+        if (journal != null) journal.turnEnded(ended);
+    }
+
+    /**
+     * Takes a player's workers off the board once they are out of the game.
+     *
+     * @param player the player who is out
+     */
+    public void knockOut(Player player) {
+        for (Worker worker : player.getWorkers()) {
+            if (worker.getCoordinate() == null) continue;
+            worker.removeFromBoard();
+            if (journal != null) journal.workerRemoved(worker);
+        }
+    }
+
+    /**
+     * Starts recording every ply of the game from the current position.
+     * Any journal already being kept is stopped and replaced.
+     *
+     * @param snapshotInterval plies between the snapshots used to seek through the journal
+     * @return the new journal
+     */
+    public GameJournal startJournal(int snapshotInterval) {
+        if (journal != null) journal.stop();
+        journal = new GameJournal(this, snapshotInterval);
+        return journal;
+    }
+
+    /**
+     * Returns the journal recording this game.
+     *
+     * @return the journal, or null if none has been started
+     */
+    public GameJournal getJournal() {
+        return journal;
     }
 
     /**
@@ -127,7 +214,7 @@ public class Game {
             for (int col = 0; col < board.getDimensions().col; col++) {
                 Space space = board.getSpace(row, col);
                 if (space.getTileType() == TileType.GROUND && !space.hasWorker()) {
-                    availableGround.add(new Coordinate(row, col));
+                    availableGround.add(board.getCoordinate(row, col));
                 }
             }
         }
@@ -238,14 +325,14 @@ public class Game {
     }
 
     /**
-     * Randomly assigns two god powers to the players.
+     * Shuffles one of every registered god, so each player gets a different one.
      *
      * @return array of assigned gods
      */
-    private God[] initGods() {
-        God[] gods = {new Zeus(), new Demeter()};
-        Random random = new Random();
-        random.setSeed(System.currentTimeMillis());
+    private static God[] initGods() {
+        God[] gods = GodRegistry.createAll();
+        // Not seeded from the clock, so games started in the same millisecond still differ
+        Random random = ThreadLocalRandom.current();
         for (int i = gods.length - 1; i > 0; i--) {
             int swapIndex = random.nextInt(i + 1);
             God temp = gods[swapIndex];
@@ -261,12 +348,8 @@ public class Game {
      * @param name name of the god
      * @return the matching God object, or null if not found
      */
-    private God stringToGod(String name) {
-        return switch (name) {
-            case "Artemis" -> new Artemis();
-            case "Demeter" -> new Demeter();
-            default -> null;
-        };
+    public static God stringToGod(String name) {
+        return GodRegistry.create(name);
     }
 
     /**
@@ -0,0 +1,276 @@
+package gameengine;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The chess clock of one game. Time is measured with {@link System#nanoTime()} and a player's
+ * remaining time is worked out when it is asked for, so nothing ticks and no time is lost when
+ * the turn passes. The only timer is one scheduled task for the running player's time running
+ * out, and every clock shares a single scheduler thread, so any number of games can run at once.
+ * <p>
+ * A clock is safe to use from several threads. Listeners are told about a player running out of
+ * time on the scheduler's thread, or on the thread that found it.
+ */
+public class GameClock {
+
+    /**
+     * Told when a player runs out of time.
+     */
+    public interface Listener {
+
+        /**
+         * Called once, when the player's time reaches zero. The clock has stopped by then.
+         *
+         * @param player the index of the player who ran out of time
+         */
+        void timeExpired(int player);
+    }
+
+    private static final int NO_PLAYER = -1;
+
+    private final TimeControl control;
+    private final long[] remainingNanos;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoTime;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private int running = NO_PLAYER;
+    private long turnStart;
+    // Identifies the running turn, so a timeout left over from an earlier turn is ignored
+    private long turnNumber = 0;
+    private ScheduledFuture<?> timeout;
+    private int expired = NO_PLAYER;
+
+    /**
+     * Creates a stopped clock on the shared scheduler.
+     *
+     * @param control the time control
+     * @param players the number of players
+     */
+    public GameClock(TimeControl control, int players) {
+        this(control, players, SharedScheduler.INSTANCE, System::nanoTime);
+    }
+
+    /**
+     * Creates a stopped clock.
+     *
+     * @param control   the time control
+     * @param players   the number of players
+     * @param scheduler runs the timeout checks
+     * @param nanoTime  the time source, in nanoseconds
+     */
+    public GameClock(TimeControl control, int players, ScheduledExecutorService scheduler, LongSupplier nanoTime) {
+        this.control = control;
+        this.scheduler = scheduler;
+        this.nanoTime = nanoTime;
+        remainingNanos = new long[players];
+        for (int i = 0; i < players; i++) {
+            remainingNanos[i] = control.initialMillis * 1_000_000L;
+        }
+    }
+
+    /**
+     * Registers a listener for players running out of time.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the time control the clock follows
+     */
+    public TimeControl getTimeControl() {
+        return control;
+    }
+
+    /**
+     * Starts a player's turn. Any turn already running is paused first, without a bonus.
+     *
+     * @param player the index of the player to move
+     */
+    public void start(int player) {
+        int ranOut;
+        synchronized (this) {
+            if (expired != NO_PLAYER) return;
+            long now = nanoTime.getAsLong();
+            int previous = running;
+            ranOut = previous != NO_PLAYER && !charge(now, false) ? previous : NO_PLAYER;
+            if (ranOut == NO_PLAYER) begin(player, now);
+        }
+        if (ranOut != NO_PLAYER) announce(ranOut);
+    }
+
+    /**
+     * Ends the running turn, applying the time control's increment, and starts the next
+     * player's turn straight away.
+     *
+     * @param next the index of the next player to move
+     */
+    public void switchTo(int next) {
+        int ranOut;
+        synchronized (this) {
+            if (expired != NO_PLAYER) return;
+            long now = nanoTime.getAsLong();
+            int previous = running;
+            ranOut = previous != NO_PLAYER && !charge(now, true) ? previous : NO_PLAYER;
+            if (ranOut == NO_PLAYER) begin(next, now);
+        }
+        if (ranOut != NO_PLAYER) announce(ranOut);
+    }
+
+    /**
+     * Stops the clock, taking the time used so far off the running player without a bonus.
+     */
+    public void stop() {
+        int ranOut;
+        synchronized (this) {
+            if (running == NO_PLAYER) return;
+            int previous = running;
+            ranOut = !charge(nanoTime.getAsLong(), false) ? previous : NO_PLAYER;
+            running = NO_PLAYER;
+        }
+        if (ranOut != NO_PLAYER) announce(ranOut);
+    }
+
+    /**
+     * Gets how long a player has left, counting the running turn up to now.
+     *
+     * @param player the index of the player
+     * @return the remaining time in milliseconds, never below 0
+     */
+    public synchronized long getRemainingMillis(int player) {
+        long remaining = remainingNanos[player];
+        if (player == running) remaining -= control.charge(nanoTime.getAsLong() - turnStart);
+        return Math.max(0, remaining) / 1_000_000L;
+    }
+
+    /**
+     * Gets how long each player has left, used when saving the game.
+     *
+     * @return the remaining time of each player in milliseconds
+     */
+    public synchronized long[] getRemainingMillis() {
+        long[] remaining = new long[remainingNanos.length];
+        for (int i = 0; i < remaining.length; i++) {
+            remaining[i] = getRemainingMillis(i);
+        }
+        return remaining;
+    }
+
+    /**
+     * Sets how long each player has left, used when loading a saved game. The clock must be
+     * stopped.
+     *
+     * @param remainingMillis the remaining time of each player in milliseconds
+     */
+    public synchronized void setRemainingMillis(long[] remainingMillis) {
+        if (running != NO_PLAYER) throw new IllegalStateException("Stop the clock before setting the time");
+        for (int i = 0; i < remainingNanos.length; i++) {
+            remainingNanos[i] = remainingMillis[i] * 1_000_000L;
+        }
+    }
+
+    /**
+     * @return the index of the player whose time is running, or -1 if the clock is stopped
+     */
+    public synchronized int getRunningPlayer() {
+        return running;
+    }
+
+    /**
+     * @return the index of the player who ran out of time, or -1 if nobody has
+     */
+    public synchronized int getExpiredPlayer() {
+        return expired;
+    }
+
+    // ##### Private
+
+    /**
+     * Starts a turn and schedules the check for it running out.
+     */
+    private void begin(int player, long now) {
+        running = player;
+        turnStart = now;
+        turnNumber++;
+        schedule(control.grace() + remainingNanos[player]);
+    }
+
+    /**
+     * Takes the running turn off the running player's clock and cancels its timeout.
+     *
+     * @return false if the player ran out of time
+     */
+    private boolean charge(long now, boolean finished) {
+        if (timeout != null) timeout.cancel(false);
+        timeout = null;
+        remainingNanos[running] -= control.charge(now - turnStart);
+        if (remainingNanos[running] <= 0) {
+            remainingNanos[running] = 0;
+            expired = running;
+            running = NO_PLAYER;
+            return false;
+        }
+        if (finished) remainingNanos[running] += control.refund();
+        return true;
+    }
+
+    private void schedule(long delayNanos) {
+        long turn = turnNumber;
+        timeout = scheduler.schedule(() -> checkTimeout(turn), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs on the scheduler when the running player should have run out of time. If the
+     * scheduler woke early the check is scheduled again for the time still left.
+     */
+    private void checkTimeout(long turn) {
+        int ranOut;
+        synchronized (this) {
+            if (turn != turnNumber || running == NO_PLAYER) return;
+            long untilOut = control.grace() + remainingNanos[running] - (nanoTime.getAsLong() - turnStart);
+            if (untilOut > 0) {
+                schedule(untilOut);
+                return;
+            }
+            ranOut = running;
+            remainingNanos[running] = 0;
+            expired = running;
+            running = NO_PLAYER;
+            timeout = null;
+        }
+        announce(ranOut);
+    }
+
+    private void announce(int player) {
+        for (Listener listener : listeners) {
+            listener.timeExpired(player);
+        }
+    }
+
+    /**
+     * The scheduler shared by every clock, created the first time a clock needs it.
+     */
+    private static class SharedScheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "santorini-clock");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Cancelled timeouts are dropped straight away instead of waiting in the queue
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
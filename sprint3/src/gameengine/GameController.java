@@ -8,13 +8,15 @@ import actions.MoveAction;
 import boardengine.Board;
 import boardengine.Coordinate;
 import boardengine.Space;
-import gui.Main;
 import gui.TimerPanel;
 import pieces.Worker;
 import playerelements.Player;
+import playerelements.gods.GodPower;
 
 //import javax.swing.*;
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class GameController {
@@ -29,7 +31,12 @@ public class GameController {
     private Worker lockedWorker = null;
     private boolean godPowerActive = false;
     private boolean godPowerPrompted = false;
+    // Set once a player has won, after which clicks and analysis are ignored
+    private boolean gameOver = false;
     private final TimerPanel timerPanel;
+    // How long the background search looks for a suggested turn
+    private static final long HINT_MILLIS = 500;
+    private final BackgroundAnalysis analysis = new BackgroundAnalysis(SwingUtilities::invokeLater, HINT_MILLIS);
 
 
     /**
@@ -46,6 +53,44 @@ public class GameController {
         this.timerPanel = timerPanel;
     }
 
+    /**
+     * Picks a loaded game up part way through the current player's turn. The worker that has
+     * moved is found from its turn record, and the moves or builds left to it are offered again.
+     * Any god power prompt was answered before the game was saved, so it is not asked again.
+     *
+     * @param phase          the phase the turn was saved in
+     * @param godPowerActive whether the player was using their god's power
+     */
+    public void resumeTurn(GamePhase phase, boolean godPowerActive) {
+        currentPhase = phase;
+        for (Worker worker : currentPlayer.getWorkers()) {
+            if (worker.getTurnMoves() == 0) continue;
+            selectedWorker = worker;
+            godPowerPrompted = true;
+            this.godPowerActive = godPowerActive && currentPlayer.getGod() != null;
+            if (this.godPowerActive && currentPlayer.getGod().restrictToOneWorker()) lockedWorker = worker;
+
+            if (phase == GamePhase.MOVE) {
+                applyGodMoveActions(worker);
+            } else if (this.godPowerActive) {
+                applyGodBuildActions(worker);
+            } else {
+                possibleBuilds = worker.getBuildActions(board);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Saves the game, with the phase of the turn and the time each player has left.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveGame(File file) throws IOException {
+        SaveFile.save(file, game, currentPhase, godPowerActive, timerPanel.getRemainingMillis());
+    }
+
     /**
      * Called when a tile is clicked. Handles selection or performs move/build.
      *
@@ -53,6 +98,33 @@ public class GameController {
      * @param col the column of the clicked tile
      */
     public void handleTileClick(int row, int col) {
+        if (gameOver) return;
+        processTileClick(row, col);
+        requestAnalysis();
+    }
+
+    /**
+     * Starts analysing the current position in the background, replacing the analysis of any
+     * earlier position. A suggested turn is only searched for before the player has moved.
+     * Results are published on the Event Dispatch Thread to the listeners of {@link #getAnalysis()}.
+     * Does nothing once the game is over. The analysis only gives hints, so a failure to start
+     * it is reported and otherwise ignored rather than breaking the game.
+     */
+    public void requestAnalysis() {
+        if (gameOver) return;
+        boolean turnStarted = selectedWorker != null && selectedWorker.getTurnMoves() > 0;
+        try {
+            analysis.analyse(game, currentPhase == GamePhase.MOVE && !godPowerActive && !turnStarted);
+        } catch (RuntimeException e) {
+            analysis.cancel();
+            System.err.println("Could not analyse the position: " + e);
+        }
+    }
+
+    /**
+     * Performs whatever a click on a tile means in the current phase.
+     */
+    private void processTileClick(int row, int col) {
         Space clickedSpace = board.getSpace(row, col);
 
         if (clickedSpace.hasWorker() && currentPlayer.ownsWorker(clickedSpace.getWorker()) && lockedWorker == null) {
@@ -113,7 +185,7 @@ public class GameController {
                 }
 
                 // Selection for the Build Phase
-            } else if (currentPhase == GamePhase.BUILD && worker.getHistory().hasWorkerMoved()) {
+            } else if (currentPhase == GamePhase.BUILD && worker.getTurnMoves() > 0) {
                 if (godPowerActive) {
                     applyGodBuildActions(worker);
                 } else {
@@ -137,8 +209,11 @@ public class GameController {
             if (move.getMoveEnd().equals(destination) && move.isValid()) {
                 selectedWorker.processTurn(move);
 
-                if (move.isWinCondition()) {
-                    SwingUtilities.invokeLater(() -> game.showVictoryDialog(currentPlayer.getName()));
+                if (GodPower.of(currentPlayer.getGod()).isWin(move)) {
+                    gameOver = true;
+                    analysis.shutdown();
+                    timerPanel.stop();
+                    game.declareWinner(currentPlayer.getName());
                     return;
                 }
 
@@ -209,7 +284,7 @@ public class GameController {
 
         JOptionPane.showMessageDialog(null,
                 "   Now it's " + currentPlayer.getName() + "'s turn!\n   Your God: " +
-                        currentPlayer.getGod().getName() + "\nSelect your Worker to move.",
+                        getCurrentGod() + "\nSelect your Worker to move.",
                 "New Turn",
                 JOptionPane.INFORMATION_MESSAGE
         );
@@ -239,8 +314,11 @@ public class GameController {
         return currentPlayer;
     }
 
+    /**
+     * @return the name of the current player's god, or "None" if they have no god
+     */
     public String getCurrentGod(){
-        return currentPlayer.getGod().getName();
+        return currentPlayer.getGod() == null ? "None" : currentPlayer.getGod().getName();
     }
 
     public Game getGame (){
@@ -255,6 +333,10 @@ public class GameController {
         return possibleBuilds;
     }
 
+    public BackgroundAnalysis getAnalysis(){
+        return analysis;
+    }
+
     // Helper Methods
 
 
@@ -285,7 +367,7 @@ public class GameController {
 
     // Applies GodMoves to possibleMoves
     private void applyGodMoveActions(Worker worker){
-        if(worker.getHistory().hasWorkerMoved()){
+        if(worker.getTurnMoves() > 0){
             ArrayList<Action> godActions = currentPlayer.getGod().generateGodActions(worker, board);
             possibleMoves = filterMoveActions(godActions);
         }
@@ -0,0 +1,436 @@
+package gameengine;
+
+import actions.Action;
+import actions.ActionObserver;
+import actions.BuildAction;
+import actions.MoveAction;
+import actions.PlaceWorkerAction;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import boardengine.Coordinate;
+import pieces.PieceRegistry;
+import pieces.TileType;
+import pieces.Worker;
+import playerelements.Player;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Append-only record of everything played in a game: every worker placement, move and build,
+ * the end of every turn and every player knocked out. Moves and builds that only a god allows
+ * (a second move, a second build, or a build under the worker itself) are flagged as god powers.
+ * <p>
+ * Each entry of the journal is one ply. A snapshot of the position is kept every
+ * {@link #getSnapshotInterval()} plies, so {@link #seek(int)} only replays the plies since the
+ * nearest snapshot instead of the whole game.
+ * <p>
+ * A journal can be streamed as it grows with {@link #streamTo(OutputStream)}:
+ * <pre>
+ * int       magic "SJN1"
+ * UTF       map name, as in a save file
+ * byte      number of players
+ * int       snapshot interval
+ * record    starting position, see {@link PositionCodec}
+ * then every ply as a 3 byte entry, with a position record after every snapshot interval
+ * </pre>
+ * A stream cut off part way through, such as a log from a crashed game, reads back up to the
+ * last whole ply.
+ */
+public class GameJournal implements ActionObserver {
+
+    /** A worker placed on the board. */
+    public static final int PLACE = 0;
+    /** A worker moved. */
+    public static final int MOVE = 1;
+    /** A piece built. */
+    public static final int BUILD = 2;
+    /** The player ended their turn. */
+    public static final int END_TURN = 3;
+    /** A worker taken off the board because its player is out. */
+    public static final int REMOVE = 4;
+
+    /**
+     * Plies between snapshots when none is given.
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
+    private static final int MAGIC = 0x534A4E31; // "SJN1"
+    private static final String[] TYPE_NAMES = {"place", "move", "build", "end turn", "remove"};
+
+    // Entry layout, low bits first
+    private static final int CELL_MASK = 0xFF;
+    private static final int DOME_BIT = 1 << 8;
+    private static final int GOD_POWER_BIT = 1 << 9;
+    private static final int WORKER_SHIFT = 10;
+    private static final int PLAYER_SHIFT = 11;
+    private static final int TYPE_SHIFT = 14;
+    private static final int ENTRY_BYTES = 3;
+
+    private final BoardTemplate template;
+    private final PositionCodec codec;
+    private final int snapshotInterval;
+    private int[] entries = new int[64];
+    private int size = 0;
+    private final ArrayList<byte[]> snapshots = new ArrayList<>();
+
+    // The game being recorded, null for a journal read back from a stream
+    private final Game game;
+    private int movesThisTurn = 0;
+    private int buildsThisTurn = 0;
+    private boolean recording;
+    private DataOutputStream out;
+    private IOException streamError;
+
+    /**
+     * Starts recording a game from its current position. Use {@link Game#startJournal(int)}.
+     *
+     * @param game             the game to record
+     * @param snapshotInterval plies between snapshots
+     */
+    GameJournal(Game game, int snapshotInterval) {
+        if (snapshotInterval < 1) throw new IllegalArgumentException("Snapshot interval must be at least 1");
+        Board board = game.getBoard();
+        this.game = game;
+        this.template = board.getTemplate();
+        this.codec = new PositionCodec(template.rows * template.cols, game.getPlayers().length);
+        this.snapshotInterval = snapshotInterval;
+        snapshots.add(snapshot(game));
+        recording = true;
+        board.addActionObserver(this);
+    }
+
+    /**
+     * Creates a journal read back from a stream, which no longer records anything.
+     */
+    private GameJournal(BoardTemplate template, PositionCodec codec, int snapshotInterval) {
+        this.game = null;
+        this.template = template;
+        this.codec = codec;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // ##### Recording
+
+    /**
+     * Records an action played on the game's board.
+     *
+     * @param action the action that was played
+     */
+    @Override
+    public void actionPlayed(Action action) {
+        Board board = game.getBoard();
+        Worker worker = action.getWorker();
+        if (action instanceof MoveAction move) {
+            int entry = entry(MOVE, worker, board.cellIndex(move.getMoveEnd()));
+            if (movesThisTurn++ > 0) entry |= GOD_POWER_BIT;
+            record(entry);
+        } else if (action instanceof BuildAction build) {
+            int entry = entry(BUILD, worker, board.cellIndex(build.position));
+            if (build.piece.tileType == TileType.DOME) entry |= DOME_BIT;
+            if (buildsThisTurn++ > 0 || build.position == worker.getCoordinate()) entry |= GOD_POWER_BIT;
+            record(entry);
+        } else if (action instanceof PlaceWorkerAction place) {
+            record(entry(PLACE, worker, board.cellIndex(place.getPosition())));
+        }
+    }
+
+    /**
+     * Records the end of a turn, after the game has moved on to the next player.
+     *
+     * @param player the player whose turn ended
+     */
+    void turnEnded(Player player) {
+        if (!recording) return;
+        record(player.playerID << PLAYER_SHIFT | END_TURN << TYPE_SHIFT);
+        movesThisTurn = 0;
+        buildsThisTurn = 0;
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                streamFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Records a worker being taken off the board, after it has been removed.
+     *
+     * @param worker the removed worker
+     */
+    void workerRemoved(Worker worker) {
+        if (recording) record(entry(REMOVE, worker, 0));
+    }
+
+    /**
+     * Stops recording, the journal keeps everything recorded so far.
+     */
+    public void stop() {
+        if (game != null) game.getBoard().removeActionObserver(this);
+        recording = false;
+    }
+
+    /**
+     * Writes the journal so far to a stream and keeps writing every new ply to it as it is
+     * recorded. The stream is flushed at the end of every turn. If writing fails the journal
+     * stops streaming and the failure is kept for {@link #getStreamError()}.
+     *
+     * @param stream where to write the journal
+     * @throws IOException if the journal so far cannot be written
+     */
+    public void streamTo(OutputStream stream) throws IOException {
+        DataOutputStream data = new DataOutputStream(stream);
+        data.writeInt(MAGIC);
+        data.writeUTF(template.name);
+        data.writeByte(codec.players());
+        data.writeInt(snapshotInterval);
+        data.write(snapshots.get(0));
+        for (int ply = 0; ply < size; ply++) {
+            writeEntry(data, ply);
+        }
+        data.flush();
+        out = data;
+        streamError = null;
+    }
+
+    /**
+     * @return why streaming stopped, or null if it has not failed
+     */
+    public IOException getStreamError() {
+        return streamError;
+    }
+
+    // ##### Reading
+
+    /**
+     * Reads a journal written by {@link #streamTo(OutputStream)}. The map is looked for the same
+     * way as for a save file.
+     *
+     * @param stream    the journal to read
+     * @param directory the folder map files are looked for in first, may be null
+     * @return the journal, up to the last whole ply in the stream
+     * @throws IOException if the stream is not a journal or the map cannot be found
+     */
+    public static GameJournal read(InputStream stream, File directory) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a game journal");
+        BoardTemplate template = SaveFile.findTemplate(in.readUTF(), directory);
+        int players = in.readUnsignedByte();
+        int interval = in.readInt();
+        if (interval < 1) throw new IOException("Bad snapshot interval " + interval);
+
+        PositionCodec codec = new PositionCodec(template.rows * template.cols, players);
+        GameJournal journal = new GameJournal(template, codec, interval);
+        byte[] start = new byte[codec.recordSize()];
+        in.readFully(start);
+        journal.snapshots.add(start);
+
+        byte[] entry = new byte[ENTRY_BYTES];
+        try {
+            while (true) {
+                if (in.read(entry, 0, 1) < 0) break;
+                in.readFully(entry, 1, ENTRY_BYTES - 1);
+                int value = (entry[0] & 0xFF) | (entry[1] & 0xFF) << 8 | (entry[2] & 0xFF) << 16;
+                if (journal.size % interval == interval - 1) {
+                    byte[] snapshot = new byte[codec.recordSize()];
+                    in.readFully(snapshot);
+                    journal.snapshots.add(snapshot);
+                }
+                journal.append(value);
+            }
+        } catch (EOFException e) {
+            // Cut off part way through a ply, keep the whole plies
+        }
+        return journal;
+    }
+
+    /**
+     * Rebuilds the game as it was after a number of plies. Only the plies since the nearest
+     * snapshot are replayed. Every player is restored as a human player.
+     *
+     * @param ply the number of plies to play, from 0 to {@link #size()}
+     * @return a new game at that position
+     */
+    public Game seek(int ply) {
+        if (ply < 0 || ply > size) throw new IndexOutOfBoundsException("No ply " + ply + " in a journal of " + size);
+        int snapshot = ply / snapshotInterval;
+        Game replay = codec.decode(ByteBuffer.wrap(snapshots.get(snapshot)), 0, template);
+        for (int i = snapshot * snapshotInterval; i < ply; i++) {
+            replay(replay, entries[i]);
+        }
+        replay.getBoard().clearUndoJournal();
+        return replay;
+    }
+
+    /**
+     * @return the number of plies recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of plies between snapshots
+     */
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * @return the map the game is played on
+     */
+    public BoardTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return the ply's type, such as {@link #MOVE}
+     */
+    public int getType(int ply) {
+        return entries[checkPly(ply)] >>> TYPE_SHIFT;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return the index of the player who played it
+     */
+    public int getPlayer(int ply) {
+        return (entries[checkPly(ply)] >>> PLAYER_SHIFT) & 7;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return 0 for the female worker, 1 for the male worker
+     */
+    public int getWorker(int ply) {
+        return (entries[checkPly(ply)] >>> WORKER_SHIFT) & 1;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return the cell placed on, moved to or built on
+     */
+    public int getCell(int ply) {
+        return entries[checkPly(ply)] & CELL_MASK;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return true if the ply built a dome
+     */
+    public boolean isDome(int ply) {
+        return (entries[checkPly(ply)] & DOME_BIT) != 0;
+    }
+
+    /**
+     * @param ply the ply index
+     * @return true if the ply was only allowed by the player's god
+     */
+    public boolean isGodPower(int ply) {
+        return (entries[checkPly(ply)] & GOD_POWER_BIT) != 0;
+    }
+
+    /**
+     * Describes a ply for reviewing a game, such as {@code "Player 1 move w (2, 3) god power"}.
+     *
+     * @param ply the ply index
+     * @return the description
+     */
+    public String describe(int ply) {
+        int type = getType(ply);
+        String text = "Player " + (getPlayer(ply) + 1) + " " + TYPE_NAMES[type];
+        if (type == END_TURN) return text;
+        text += getWorker(ply) == 0 ? " w" : " W";
+        if (type == REMOVE) return text;
+        int cell = getCell(ply);
+        text += " (" + cell / template.cols + ", " + cell % template.cols + ")";
+        if (isDome(ply)) text += " dome";
+        if (isGodPower(ply)) text += " god power";
+        return text;
+    }
+
+    // ##### Private
+
+    private int entry(int type, Worker worker, int cell) {
+        return type << TYPE_SHIFT | worker.ownerID << PLAYER_SHIFT | (worker.female ? 0 : 1) << WORKER_SHIFT | cell;
+    }
+
+    /**
+     * Adds an entry, taking a snapshot once the interval is reached and streaming both.
+     */
+    private void record(int entry) {
+        append(entry);
+        if (size % snapshotInterval == 0) snapshots.add(snapshot(game));
+        if (out != null) {
+            try {
+                writeEntry(out, size - 1);
+            } catch (IOException e) {
+                streamFailed(e);
+            }
+        }
+    }
+
+    private void append(int entry) {
+        if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+        entries[size++] = entry;
+    }
+
+    /**
+     * Writes a ply and, if one was taken after it, the snapshot that follows it.
+     */
+    private void writeEntry(DataOutputStream data, int ply) throws IOException {
+        int entry = entries[ply];
+        data.write(entry);
+        data.write(entry >>> 8);
+        data.write(entry >>> 16);
+        if ((ply + 1) % snapshotInterval == 0) data.write(snapshots.get((ply + 1) / snapshotInterval));
+    }
+
+    private void streamFailed(IOException e) {
+        streamError = e;
+        out = null;
+    }
+
+    private byte[] snapshot(Game position) {
+        ByteBuffer buffer = ByteBuffer.allocate(codec.recordSize());
+        codec.encode(position, buffer);
+        return buffer.array();
+    }
+
+    private int checkPly(int ply) {
+        if (ply < 0 || ply >= size) throw new IndexOutOfBoundsException("No ply " + ply + " in a journal of " + size);
+        return ply;
+    }
+
+    /**
+     * Plays one entry on a game without going through the actions, so nothing is recorded.
+     */
+    private static void replay(Game target, int entry) {
+        int type = entry >>> TYPE_SHIFT;
+        if (type == END_TURN) {
+            target.nextTurn();
+            return;
+        }
+        Board board = target.getBoard();
+        Worker worker = target.getPlayers()[(entry >>> PLAYER_SHIFT) & 7].getWorkers()[(entry >>> WORKER_SHIFT) & 1];
+        Coordinate position = board.getCoordinate(entry & CELL_MASK);
+        switch (type) {
+            case PLACE, MOVE -> worker.setCoordinate(position);
+            case BUILD -> board.buildPiece((entry & DOME_BIT) != 0
+                    ? PieceRegistry.dome()
+                    : PieceRegistry.nextPiece(board.getSpace(position).getHeight()), position);
+            case REMOVE -> worker.removeFromBoard();
+            default -> throw new IllegalStateException("Unknown journal entry " + Integer.toHexString(entry));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package gameengine;
+
+/**
+ * Receives notifications about the outcome of a {@link Game}.
+ * Lets a front end (such as the Swing gui) react to the game without the engine depending on it.
+ */
+public interface GameListener {
+
+    /**
+     * Called once a player has won the game.
+     *
+     * @param winnerName the display name of the winner
+     */
+    void onGameWon(String winnerName);
+}
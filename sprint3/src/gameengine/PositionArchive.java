@@ -0,0 +1,479 @@
+package gameengine;
+
+import boardengine.BoardTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of {@link PositionCodec} records, for storing millions of self-play
+ * positions. The file starts with a fixed header naming the map and the record layout, followed
+ * by blocks of records. Each block starts with its record count and a CRC32 of its records.
+ * A small index file next to the archive ({@code name.idx}) lists where every block starts, so a
+ * reader can find any record without walking the archive.
+ * <p>
+ * {@link Reader} maps the archive with a {@link FileChannel} and hands out the mapped buffer and
+ * record offsets directly, so positions can be scanned at disk speed with the static accessors
+ * of {@link PositionCodec} and only turned back into a {@link Game} when needed.
+ */
+public class PositionArchive {
+
+    private static final byte[] MAGIC = "SANTPOS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_NAME_BYTES = 40;
+    private static final int BLOCK_HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 20;
+    // Blocks are mapped in segments of at most this many bytes
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Default number of records per block.
+     */
+    public static final int DEFAULT_BLOCK_RECORDS = 4096;
+
+    private static Path indexPath(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ".idx");
+    }
+
+    /**
+     * Finds every complete block by walking the block headers, for archives without an index.
+     *
+     * @return the offset, first record number and record count of each block
+     */
+    private static ArrayList<long[]> walkBlocks(FileChannel channel, Header header) throws IOException {
+        ArrayList<long[]> found = new ArrayList<>();
+        long offset = HEADER_SIZE;
+        long records = 0;
+        long fileSize = channel.size();
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        while (offset + BLOCK_HEADER_SIZE <= fileSize) {
+            blockHeader.clear();
+            channel.read(blockHeader, offset);
+            int count = blockHeader.getInt(0);
+            long end = offset + BLOCK_HEADER_SIZE + (long) count * header.codec.recordSize();
+            if (count <= 0 || end > fileSize) break;
+            found.add(new long[]{offset, records, count});
+            records += count;
+            offset = end;
+        }
+        return found;
+    }
+
+    /**
+     * The fixed header at the start of an archive.
+     */
+    private static class Header {
+        final String mapName;
+        final int rows;
+        final int cols;
+        final int players;
+        final int blockRecords;
+        final PositionCodec codec;
+
+        Header(String mapName, int rows, int cols, int players, int blockRecords) {
+            this.mapName = mapName;
+            this.rows = rows;
+            this.cols = cols;
+            this.players = players;
+            this.blockRecords = blockRecords;
+            this.codec = new PositionCodec(rows * cols, players);
+        }
+
+        ByteBuffer toBytes() {
+            byte[] name = mapName.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) throw new IllegalArgumentException("Map name " + mapName + " is too long");
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+            bytes.put(MAGIC).putInt(codec.recordSize()).putShort((short) rows).putShort((short) cols)
+                    .put((byte) players).put((byte) 0).putInt(blockRecords)
+                    .putShort((short) name.length).put(name);
+            bytes.clear();
+            return bytes;
+        }
+
+        static Header read(FileChannel channel) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(bytes, 0) < HEADER_SIZE) throw new IOException("Archive header is incomplete");
+            bytes.flip();
+            byte[] magic = new byte[MAGIC.length];
+            bytes.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a position archive");
+            int recordSize = bytes.getInt();
+            int rows = bytes.getShort();
+            int cols = bytes.getShort();
+            int players = bytes.get();
+            bytes.get();
+            int blockRecords = bytes.getInt();
+            byte[] name = new byte[bytes.getShort()];
+            bytes.get(name);
+            Header header = new Header(new String(name, StandardCharsets.UTF_8), rows, cols, players, blockRecords);
+            if (header.codec.recordSize() != recordSize) throw new IOException("Archive record size does not match its layout");
+            return header;
+        }
+    }
+
+    /**
+     * Appends positions to an archive. Records are collected into blocks in memory, and each full
+     * block is written with one call and then added to the index. Closing the writer writes the
+     * last, partly filled block.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final FileChannel index;
+        private final Header header;
+        private final ByteBuffer block;
+        private final CRC32 crc = new CRC32();
+        private long records;
+        private int blockCount;
+
+        private Writer(FileChannel channel, FileChannel index, Header header, long records) {
+            this.channel = channel;
+            this.index = index;
+            this.header = header;
+            this.records = records;
+            this.block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + header.blockRecords * header.codec.recordSize());
+            block.position(BLOCK_HEADER_SIZE);
+        }
+
+        /**
+         * Creates a new, empty archive, replacing any archive already at the path.
+         *
+         * @param file         the archive file
+         * @param template     the map every position is played on
+         * @param players      the number of players in every position
+         * @param blockRecords the number of records per block
+         * @return the writer
+         * @throws IOException if the file cannot be created
+         */
+        public static Writer create(Path file, BoardTemplate template, int players, int blockRecords) throws IOException {
+            Header header = new Header(template.name, template.rows, template.cols, players, blockRecords);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            FileChannel index = FileChannel.open(indexPath(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.write(header.toBytes(), 0);
+            channel.position(HEADER_SIZE);
+            return new Writer(channel, index, header, 0);
+        }
+
+        /**
+         * Opens an existing archive to add more positions. Anything after the last indexed block,
+         * such as a block cut short by a crash, is discarded.
+         *
+         * @param file the archive file
+         * @return the writer
+         * @throws IOException if the archive cannot be opened
+         */
+        public static Writer openForAppend(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            Header header = Header.read(channel);
+            boolean hasIndex = Files.exists(indexPath(file));
+            FileChannel index = FileChannel.open(indexPath(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ);
+            if (!hasIndex) {
+                // Rebuild a lost index from the block headers
+                ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+                for (long[] block : walkBlocks(channel, header)) {
+                    entry.clear();
+                    entry.putLong(block[0]).putLong(block[1]).putInt((int) block[2]).flip();
+                    while (entry.hasRemaining()) index.write(entry);
+                }
+            }
+
+            long end = HEADER_SIZE;
+            long records = 0;
+            long entries = index.size() / INDEX_ENTRY_SIZE;
+            if (entries > 0) {
+                ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+                index.read(last, (entries - 1) * INDEX_ENTRY_SIZE);
+                last.flip();
+                long offset = last.getLong();
+                long first = last.getLong();
+                int count = last.getInt();
+                end = offset + BLOCK_HEADER_SIZE + (long) count * header.codec.recordSize();
+                records = first + count;
+            }
+            index.truncate(entries * INDEX_ENTRY_SIZE);
+            index.position(entries * INDEX_ENTRY_SIZE);
+            channel.truncate(end);
+            channel.position(end);
+            return new Writer(channel, index, header, records);
+        }
+
+        /**
+         * Adds a position to the archive.
+         *
+         * @param game the game whose position is stored
+         * @throws IOException if a full block cannot be written
+         */
+        public void append(Game game) throws IOException {
+            if (game.getPlayers().length != header.players) {
+                throw new IllegalArgumentException("Archive holds " + header.players + " player positions");
+            }
+            header.codec.encode(game, block);
+            if (++blockCount == header.blockRecords) flush();
+        }
+
+        /**
+         * Adds positions that were already encoded with a {@link PositionCodec} of the same layout,
+         * for example on another thread.
+         *
+         * @param encoded whole records, one after another
+         * @throws IOException if a full block cannot be written
+         */
+        public void appendRecords(byte[] encoded) throws IOException {
+            int recordSize = header.codec.recordSize();
+            if (encoded.length % recordSize != 0) {
+                throw new IllegalArgumentException("Encoded positions are not whole " + recordSize + " byte records");
+            }
+            for (int at = 0; at < encoded.length; at += recordSize) {
+                block.put(encoded, at, recordSize);
+                if (++blockCount == header.blockRecords) flush();
+            }
+        }
+
+        /**
+         * @return the number of positions in the archive, including ones not yet written
+         */
+        public long size() {
+            return records + blockCount;
+        }
+
+        /**
+         * Writes the records collected so far as a block and adds it to the index.
+         *
+         * @throws IOException if the block cannot be written
+         */
+        public void flush() throws IOException {
+            if (blockCount == 0) return;
+            int payload = blockCount * header.codec.recordSize();
+            crc.reset();
+            crc.update(block.array(), BLOCK_HEADER_SIZE, payload);
+            block.putInt(0, blockCount).putInt(4, (int) crc.getValue());
+            block.flip();
+
+            long offset = channel.position();
+            while (block.hasRemaining()) channel.write(block);
+
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            entry.putLong(offset).putLong(records).putInt(blockCount).flip();
+            while (entry.hasRemaining()) index.write(entry);
+
+            records += blockCount;
+            blockCount = 0;
+            block.clear();
+            block.position(BLOCK_HEADER_SIZE);
+        }
+
+        /**
+         * Writes the last block and closes the archive.
+         *
+         * @throws IOException if the last block cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Receives each record while an archive is scanned.
+     */
+    public interface RecordVisitor {
+
+        /**
+         * Called once for every record, in the order they were written.
+         *
+         * @param recordNumber the number of the record in the archive
+         * @param buffer       the mapped buffer holding the record
+         * @param offset       where the record starts in the buffer
+         */
+        void visit(long recordNumber, ByteBuffer buffer, int offset);
+    }
+
+    /**
+     * Reads an archive through memory-mapped segments of the file.
+     */
+    public static class Reader implements Closeable {
+        private final FileChannel channel;
+        private final Header header;
+        private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+        private final ArrayList<Long> segmentStarts = new ArrayList<>();
+        // Per block: segment, offset of the first record in the segment, first record number and count
+        private int[] blockSegment = new int[16];
+        private int[] blockOffset = new int[16];
+        private long[] blockFirst = new long[16];
+        private int[] blockCount = new int[16];
+        private int blocks;
+        private long records;
+
+        private Reader(FileChannel channel, Header header) {
+            this.channel = channel;
+            this.header = header;
+        }
+
+        /**
+         * Opens an archive for reading. Blocks are found through the index file, or by walking the
+         * block headers if there is no index.
+         *
+         * @param file the archive file
+         * @return the reader
+         * @throws IOException if the archive cannot be read
+         */
+        public static Reader open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            Reader reader = new Reader(channel, Header.read(channel));
+            Path index = indexPath(file);
+            if (Files.exists(index)) {
+                reader.loadIndex(index);
+            } else {
+                reader.scanBlockHeaders();
+            }
+            return reader;
+        }
+
+        /**
+         * @return the name of the map every position was played on
+         */
+        public String mapName() {
+            return header.mapName;
+        }
+
+        /**
+         * @return the codec used for the records
+         */
+        public PositionCodec codec() {
+            return header.codec;
+        }
+
+        /**
+         * @return the number of positions in the archive
+         */
+        public long size() {
+            return records;
+        }
+
+        /**
+         * Calls the visitor for every record in the archive.
+         *
+         * @param visitor receives each record
+         */
+        public void scan(RecordVisitor visitor) {
+            int recordSize = header.codec.recordSize();
+            for (int b = 0; b < blocks; b++) {
+                ByteBuffer segment = segments.get(blockSegment[b]);
+                int offset = blockOffset[b];
+                for (int i = 0; i < blockCount[b]; i++) {
+                    visitor.visit(blockFirst[b] + i, segment, offset + i * recordSize);
+                }
+            }
+        }
+
+        /**
+         * Checks the CRC of every block.
+         *
+         * @return true if no block has been damaged
+         */
+        public boolean verify() {
+            CRC32 crc = new CRC32();
+            int recordSize = header.codec.recordSize();
+            for (int b = 0; b < blocks; b++) {
+                ByteBuffer segment = segments.get(blockSegment[b]);
+                ByteBuffer payload = segment.slice(blockOffset[b], blockCount[b] * recordSize);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != segment.getInt(blockOffset[b] - 4)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Rebuilds the game of one record.
+         *
+         * @param recordNumber the number of the record
+         * @param template     the map the positions were played on
+         * @return the restored game
+         */
+        public Game load(long recordNumber, BoardTemplate template) {
+            if (recordNumber < 0 || recordNumber >= records) throw new IndexOutOfBoundsException("No record " + recordNumber);
+            // Binary search for the block holding the record
+            int low = 0;
+            int high = blocks - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (blockFirst[mid] <= recordNumber) low = mid;
+                else high = mid - 1;
+            }
+            int offset = blockOffset[low] + (int) (recordNumber - blockFirst[low]) * header.codec.recordSize();
+            return header.codec.decode(segments.get(blockSegment[low]), offset, template);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void loadIndex(Path indexFile) throws IOException {
+            ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+            long fileSize = channel.size();
+            while (entries.remaining() >= INDEX_ENTRY_SIZE) {
+                long offset = entries.getLong();
+                long first = entries.getLong();
+                int count = entries.getInt();
+                if (offset + BLOCK_HEADER_SIZE + (long) count * header.codec.recordSize() > fileSize) break;
+                addBlock(offset, first, count);
+            }
+        }
+
+        private void scanBlockHeaders() throws IOException {
+            for (long[] block : walkBlocks(channel, header)) {
+                addBlock(block[0], block[1], (int) block[2]);
+            }
+        }
+
+        /**
+         * Records where a block is, mapping a new segment of the file when the block does not fit
+         * in the current one.
+         */
+        private void addBlock(long offset, long first, int count) throws IOException {
+            long length = BLOCK_HEADER_SIZE + (long) count * header.codec.recordSize();
+            MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            long segmentStart = segments.isEmpty() ? 0 : segmentStarts.get(segmentStarts.size() - 1);
+            if (segment == null || offset + length > segmentStart + segment.capacity()) {
+                long size = Math.min(Math.max(SEGMENT_SIZE, length), channel.size() - offset);
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                segments.add(segment);
+                segmentStarts.add(offset);
+                segmentStart = offset;
+            }
+
+            if (blocks == blockCount.length) {
+                int grown = blocks * 2;
+                blockSegment = Arrays.copyOf(blockSegment, grown);
+                blockOffset = Arrays.copyOf(blockOffset, grown);
+                blockFirst = Arrays.copyOf(blockFirst, grown);
+                blockCount = Arrays.copyOf(blockCount, grown);
+            }
+            blockSegment[blocks] = segments.size() - 1;
+            blockOffset[blocks] = (int) (offset - segmentStart) + BLOCK_HEADER_SIZE;
+            blockFirst[blocks] = first;
+            blockCount[blocks] = count;
+            blocks++;
+            records = first + count;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package gameengine;
+
+import aiengine.TurnStrategy;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import boardengine.Coordinate;
+import pieces.PieceRegistry;
+import pieces.Worker;
+import playerelements.Player;
+import playerelements.gods.God;
+import playerelements.gods.GodPower;
+import playerelements.gods.GodRegistry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a game position into a small fixed-size binary record. For a given map and player count
+ * every record has the same size:
+ * <pre>
+ * byte      player to move
+ * per player:
+ *   byte    god id, its place in the {@link GodRegistry} (see {@link #godId(String)})
+ *   byte    female worker cell, {@link #NO_CELL} if not on the board
+ *   byte    male worker cell, {@link #NO_CELL} if not on the board
+ * 3 bits    height of every cell in cell order (4 means a dome), packed little-end first
+ * </pre>
+ * A 5x5 two player position takes 17 bytes. The static accessors read single fields straight
+ * out of a buffer, so archived positions can be scanned without creating any game objects.
+ */
+public class PositionCodec {
+
+    /**
+     * Worker cell value for a worker that is not on the board.
+     */
+    public static final int NO_CELL = 0xFF;
+
+    /**
+     * Largest number of cells that fits in a worker byte.
+     */
+    public static final int MAX_CELLS = NO_CELL;
+
+    private static final int HEIGHT_BITS = 3;
+    private static final int HEIGHT_MASK = (1 << HEIGHT_BITS) - 1;
+
+    private final int cells;
+    private final int players;
+    private final int heightOffset;
+    private final int recordSize;
+
+    /**
+     * Creates a codec for positions on boards with the given number of cells.
+     *
+     * @param cells   the number of playable cells
+     * @param players the number of players
+     */
+    public PositionCodec(int cells, int players) {
+        if (cells > MAX_CELLS) throw new IllegalArgumentException("Boards over " + MAX_CELLS + " cells cannot be encoded");
+        this.cells = cells;
+        this.players = players;
+        this.heightOffset = 1 + players * 3;
+        this.recordSize = heightOffset + (cells * HEIGHT_BITS + 7) / 8;
+    }
+
+    /**
+     * @return the size of one encoded position in bytes
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * @return the number of cells per position
+     */
+    public int cells() {
+        return cells;
+    }
+
+    /**
+     * @return the number of players per position
+     */
+    public int players() {
+        return players;
+    }
+
+    /**
+     * Writes a game position at the buffer's current position and advances past it.
+     *
+     * @param game the game to encode
+     * @param out  receives the record, must have {@link #recordSize()} bytes remaining
+     */
+    public void encode(Game game, ByteBuffer out) {
+        Board board = game.getBoard();
+        Player[] gamePlayers = game.getPlayers();
+        int base = out.position();
+
+        out.put((byte) game.getCurrentPlayer().playerID);
+        for (int i = 0; i < players; i++) {
+            Player player = gamePlayers[i];
+            out.put((byte) godId(player.getGod() == null ? null : player.getGod().getName()));
+            for (Worker worker : player.getWorkers()) {
+                Coordinate position = worker.getCoordinate();
+                out.put((byte) (position == null ? NO_CELL : board.cellIndex(position)));
+            }
+        }
+
+        // Heights are packed into a little-endian bit stream
+        long bits = 0;
+        int pending = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            bits |= (long) board.getSpace(cell).getHeight() << pending;
+            pending += HEIGHT_BITS;
+            while (pending >= 8) {
+                out.put((byte) bits);
+                bits >>>= 8;
+                pending -= 8;
+            }
+        }
+        if (pending > 0) out.put((byte) bits);
+        assert (out.position() - base == recordSize);
+    }
+
+    /**
+     * Rebuilds a game from a record. Every player is restored as a human player.
+     *
+     * @param record   the buffer holding the record
+     * @param offset   where the record starts in the buffer
+     * @param template the map the position was played on
+     * @return the restored game
+     */
+    public Game decode(ByteBuffer record, int offset, BoardTemplate template) {
+        Board board = template.newBoard();
+        for (int cell = 0; cell < cells; cell++) {
+            int height = height(record, offset, cell);
+            Coordinate position = board.getCoordinate(cell);
+            for (int level = 0; level < height; level++) {
+                board.buildPiece(PieceRegistry.nextPiece(level), position);
+            }
+        }
+
+        God[] gods = new God[players];
+        for (int i = 0; i < players; i++) {
+            gods[i] = Game.stringToGod(godName(godId(record, offset, i)));
+        }
+        Game game = new Game(board, gods, new TurnStrategy[players]);
+        Player[] gamePlayers = game.getPlayers();
+        for (int i = 0; i < players; i++) {
+            Worker[] workers = gamePlayers[i].getWorkers();
+            for (int w = 0; w < workers.length; w++) {
+                int cell = workerCell(record, offset, i, w);
+                if (cell != NO_CELL) workers[w].setCoordinate(board.getCoordinate(cell));
+            }
+            gamePlayers[i].setHasPlacedWorker(true);
+        }
+        board.clearUndoJournal();
+        game.setCurrentPlayer(toMove(record, offset));
+        return game;
+    }
+
+    // ##### Field accessors
+
+    /**
+     * @param record the buffer holding the record
+     * @param offset where the record starts
+     * @return the index of the player to move
+     */
+    public static int toMove(ByteBuffer record, int offset) {
+        return record.get(offset) & 0xFF;
+    }
+
+    /**
+     * @param record the buffer holding the record
+     * @param offset where the record starts
+     * @param player the player index
+     * @return the player's god id
+     */
+    public static int godId(ByteBuffer record, int offset, int player) {
+        return record.get(offset + 1 + player * 3) & 0xFF;
+    }
+
+    /**
+     * @param record the buffer holding the record
+     * @param offset where the record starts
+     * @param player the player index
+     * @param worker 0 for the female worker, 1 for the male worker
+     * @return the worker's cell, or {@link #NO_CELL}
+     */
+    public static int workerCell(ByteBuffer record, int offset, int player, int worker) {
+        return record.get(offset + 2 + player * 3 + worker) & 0xFF;
+    }
+
+    /**
+     * @param record the buffer holding the record
+     * @param offset where the record starts
+     * @param cell   the cell index
+     * @return the height of the cell, 4 for a dome
+     */
+    public int height(ByteBuffer record, int offset, int cell) {
+        int bit = cell * HEIGHT_BITS;
+        int at = offset + heightOffset + (bit >>> 3);
+        int value = record.get(at) & 0xFF;
+        // A height may straddle two bytes
+        if ((bit & 7) + HEIGHT_BITS > 8) value |= (record.get(at + 1) & 0xFF) << 8;
+        return (value >>> (bit & 7)) & HEIGHT_MASK;
+    }
+
+    /**
+     * Gets the id a god is stored under.
+     *
+     * @param name the god's name, or null for no god
+     * @return the god id, 0 for no god or an unknown god
+     */
+    public static int godId(String name) {
+        GodPower power = name == null ? null : GodRegistry.getPower(name);
+        return power == null ? 0 : power.id;
+    }
+
+    /**
+     * Gets the name of the god stored under an id.
+     *
+     * @param id the god id
+     * @return the god's name, "None" for no god
+     */
+    public static String godName(int id) {
+        GodPower power = GodRegistry.getPower(id);
+        return power == null ? GodPower.NONE.name : power.name;
+    }
+}
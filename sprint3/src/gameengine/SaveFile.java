@@ -0,0 +1,397 @@
+package gameengine;
+
+import aiengine.TurnStrategy;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import boardengine.Coordinate;
+import boardengine.Space;
+import boardengine.Zobrist;
+import pieces.PieceRegistry;
+import pieces.TileType;
+import pieces.Worker;
+import playerelements.Player;
+import playerelements.gods.God;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Reads and writes games in the {@code .save} text format. A save file looks like:
+ * <pre>
+ * donut.map
+ * Players=2
+ * CurrentPlayer=0
+ * Phase=BUILD
+ * TimersMs=300000,300000
+ * Turn=W 1 2 2
+ * TurnBuilds=1 3 3
+ * GodPowerActive=true
+ * Player0 Artemis
+ * w 0 1
+ * W 0 2
+ *
+ * Player1 Demeter
+ * w 1 0
+ * W 2 0
+ *
+ * pieces
+ * 1 1 1
+ * 3D 4 1
+ * </pre>
+ * The first line names the map: a map file next to the save or in the maps folder, or a size
+ * such as {@code 5x5} for a board without ocean. Each player has a line with their god followed
+ * by their female ({@code w}) and male ({@code W}) worker positions as row and column. Every
+ * built space is listed under {@code pieces} as its tower height and position, with a {@code D}
+ * after the height if the tower is capped with a dome. The {@code CurrentPlayer}, {@code Phase}
+ * and {@code TimersMs} lines are optional. A player without a god is saved as {@code None}.
+ * <p>
+ * A game saved part way through a turn also has a {@code Turn} line for the current player's
+ * worker that has moved: the worker, how many moves it has made and the row and column it
+ * started the turn on. {@code TurnBuilds} gives how many times it has built and where it last
+ * built, and {@code GodPowerActive} is there while the player is using their god's power.
+ * A save in the {@code BUILD} phase always has a {@code Turn} line.
+ * <p>
+ * Files are written and read one line at a time, so nothing but the game itself is built.
+ */
+public class SaveFile {
+
+    private static final String PIECES = "pieces";
+
+    /**
+     * A game restored from a save file, along with the parts of the turn that the gui keeps.
+     */
+    public static class SavedGame {
+        /** The restored game, with the saved player to move. */
+        public final Game game;
+        /** The phase of the current player's turn. */
+        public final GamePhase phase;
+        /** Whether the current player is using their god's power. */
+        public final boolean godPowerActive;
+        /** Time each player has left in milliseconds, or null if the save has no timers. */
+        public final long[] remainingMillis;
+
+        SavedGame(Game game, GamePhase phase, boolean godPowerActive, long[] remainingMillis) {
+            this.game = game;
+            this.phase = phase;
+            this.godPowerActive = godPowerActive;
+            this.remainingMillis = remainingMillis;
+        }
+    }
+
+    /**
+     * Saves a game to a file.
+     *
+     * @param file            the file to write
+     * @param game            the game to save
+     * @param phase           the phase of the current player's turn
+     * @param godPowerActive  whether the current player is using their god's power
+     * @param remainingMillis time each player has left in milliseconds, or null for no timers
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(File file, Game game, GamePhase phase, boolean godPowerActive, long[] remainingMillis)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(file))) {
+            write(out, game, phase, godPowerActive, remainingMillis);
+        }
+    }
+
+    /**
+     * Writes a game in the save format.
+     *
+     * @param out             where to write the game
+     * @param game            the game to save
+     * @param phase           the phase of the current player's turn
+     * @param godPowerActive  whether the current player is using their god's power
+     * @param remainingMillis time each player has left in milliseconds, or null for no timers
+     * @throws IOException if writing fails
+     */
+    public static void write(Writer out, Game game, GamePhase phase, boolean godPowerActive, long[] remainingMillis)
+            throws IOException {
+        Board board = game.getBoard();
+        Player[] players = game.getPlayers();
+
+        out.write(board.getTemplate().name + "\n");
+        out.write("Players=" + players.length + "\n");
+        out.write("CurrentPlayer=" + game.getCurrentPlayer().playerID + "\n");
+        out.write("Phase=" + phase.name() + "\n");
+        if (remainingMillis != null) {
+            StringBuilder timers = new StringBuilder("TimersMs=");
+            for (int i = 0; i < remainingMillis.length; i++) {
+                if (i > 0) timers.append(',');
+                timers.append(remainingMillis[i]);
+            }
+            out.write(timers + "\n");
+        }
+        writeTurn(out, game.getCurrentPlayer(), godPowerActive);
+
+        for (Player player : players) {
+            out.write("Player" + player.playerID + " " + (player.getGod() == null ? "None" : player.getGod().getName()) + "\n");
+            for (Worker worker : player.getWorkers()) {
+                Coordinate position = worker.getCoordinate();
+                if (position == null) continue;
+                out.write((worker.female ? "w " : "W ") + position.row + " " + position.col + "\n");
+            }
+            out.write("\n");
+        }
+
+        out.write(PIECES + "\n");
+        Board.Dimensions dims = board.getDimensions();
+        for (int row = 0; row < dims.row; row++) {
+            for (int col = 0; col < dims.col; col++) {
+                Space space = board.getSpace(row, col);
+                int height = space.getHeight();
+                if (height == 0) continue;
+                boolean domed = space.getTileType() == TileType.DOME;
+                out.write((domed ? (height - 1) + "D" : String.valueOf(height)) + " " + row + " " + col + "\n");
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Loads a game from a file. The map is looked for next to the save file first.
+     *
+     * @param file the save file
+     * @return the restored game
+     * @throws IOException if the file or its map cannot be read
+     */
+    public static SavedGame load(File file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            return read(in, file.getAbsoluteFile().getParentFile());
+        }
+    }
+
+    /**
+     * Reads a game in the save format. Every player is restored as a human player.
+     *
+     * @param in        the save to read
+     * @param directory the folder map files are looked for in first, may be null
+     * @return the restored game
+     * @throws IOException if reading fails, the map cannot be found or the save is not valid
+     */
+    public static SavedGame read(BufferedReader in, File directory) throws IOException {
+        int lineNumber = 1;
+        BoardTemplate template = findTemplate(in.readLine(), directory);
+
+        God[] gods = null;
+        int[][] workers = null;
+        int currentPlayer = 0;
+        GamePhase phase = GamePhase.MOVE;
+        long[] timers = null;
+        // Turn record of the current player's worker that has moved, see writeTurn
+        int[] turn = null;
+        int[] turnBuilds = null;
+        boolean godPowerActive = false;
+        int player = -1;
+        Board board = null;
+        // Cells already listed in the pieces section
+        boolean[] built = null;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            try {
+                if (board != null) {
+                    buildPieces(board, built, line, lineNumber);
+                } else if (line.equals(PIECES)) {
+                    board = template.newBoard();
+                    built = new boolean[board.getDimensions().size()];
+                } else if (line.startsWith("Players=")) {
+                    int count = Integer.parseInt(line.substring("Players=".length()));
+                    if (count < 2 || count > Zobrist.MAX_PLAYERS) {
+                        throw badLine(lineNumber, "a game has 2 to " + Zobrist.MAX_PLAYERS + " players");
+                    }
+                    gods = new God[count];
+                    workers = new int[count][];
+                } else if (line.startsWith("CurrentPlayer=")) {
+                    currentPlayer = Integer.parseInt(line.substring("CurrentPlayer=".length()));
+                } else if (line.startsWith("Phase=")) {
+                    phase = GamePhase.valueOf(line.substring("Phase=".length()));
+                } else if (line.startsWith("TimersMs=")) {
+                    String[] values = line.substring("TimersMs=".length()).split(",");
+                    timers = new long[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        timers[i] = Long.parseLong(values[i].trim());
+                    }
+                } else if (line.startsWith("Turn=")) {
+                    String[] parts = line.substring("Turn=".length()).split(" ");
+                    if (parts.length != 4 || !(parts[0].equals("w") || parts[0].equals("W"))) {
+                        throw badLine(lineNumber, "expected worker, moves, row and column");
+                    }
+                    turn = new int[]{parts[0].equals("w") ? 0 : 1, Integer.parseInt(parts[1]),
+                            Integer.parseInt(parts[2]), Integer.parseInt(parts[3])};
+                } else if (line.startsWith("TurnBuilds=")) {
+                    String[] parts = line.substring("TurnBuilds=".length()).split(" ");
+                    if (parts.length != 3) throw badLine(lineNumber, "expected builds, row and column");
+                    turnBuilds = new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+                } else if (line.startsWith("GodPowerActive=")) {
+                    godPowerActive = Boolean.parseBoolean(line.substring("GodPowerActive=".length()));
+                } else if (line.startsWith("Player")) {
+                    if (gods == null) throw badLine(lineNumber, "Players= must come before the players");
+                    String[] parts = line.split(" ");
+                    player = Integer.parseInt(parts[0].substring("Player".length()));
+                    if (player < 0 || player >= gods.length) throw badLine(lineNumber, "no player " + player);
+                    gods[player] = parts.length > 1 ? readGod(parts[1], lineNumber) : null;
+                    workers[player] = new int[]{-1, -1, -1, -1};
+                } else if (line.startsWith("w ") || line.startsWith("W ")) {
+                    if (player < 0) throw badLine(lineNumber, "worker outside a player section");
+                    String[] parts = line.split(" ");
+                    if (parts.length != 3) throw badLine(lineNumber, "expected worker, row and column");
+                    int index = line.charAt(0) == 'w' ? 0 : 2;
+                    workers[player][index] = Integer.parseInt(parts[1]);
+                    workers[player][index + 1] = Integer.parseInt(parts[2]);
+                } else {
+                    throw badLine(lineNumber, "unknown line '" + line + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw badLine(lineNumber, "bad number in '" + line + "'");
+            } catch (RuntimeException e) {
+                throw badLine(lineNumber, "cannot read '" + line + "'");
+            }
+        }
+
+        if (gods == null) throw new IOException("Save has no Players= line");
+        if (timers != null && timers.length != gods.length) throw new IOException("TimersMs= needs a time for every player");
+        if (currentPlayer < 0 || currentPlayer >= gods.length) throw new IOException("CurrentPlayer= names no player");
+        if (phase == GamePhase.BUILD && turn == null) throw new IOException("Phase=BUILD needs a Turn= line");
+        if (board == null) board = template.newBoard();
+
+        Game game = new Game(board, gods, new TurnStrategy[gods.length]);
+        Player[] players = game.getPlayers();
+        for (int i = 0; i < players.length; i++) {
+            if (workers[i] == null) continue;
+            Worker[] playerWorkers = players[i].getWorkers();
+            for (int w = 0; w < playerWorkers.length; w++) {
+                int row = workers[i][w * 2];
+                int col = workers[i][w * 2 + 1];
+                if (row < 0) continue;
+                if (!board.isInBounds(row, col)) throw new IOException("Worker of player " + i + " is off the board");
+                Space space = board.getSpace(row, col);
+                if (space.hasWorker() || !space.isTraversable()) {
+                    throw new IOException("Worker of player " + i + " cannot stand on (" + row + ", " + col + ")");
+                }
+                playerWorkers[w].setCoordinate(space.coordinate);
+            }
+            players[i].setHasPlacedWorker(true);
+        }
+        board.clearUndoJournal();
+        game.setCurrentPlayer(currentPlayer);
+        if (turn != null) restoreTurn(game, turn, turnBuilds);
+        return new SavedGame(game, phase, godPowerActive, timers);
+    }
+
+    /**
+     * Writes the turn record of the current player's worker that has moved, if any.
+     */
+    private static void writeTurn(Writer out, Player player, boolean godPowerActive) throws IOException {
+        for (Worker worker : player.getWorkers()) {
+            if (worker.getTurnMoves() == 0) continue;
+            Coordinate start = worker.getTurnStart();
+            out.write("Turn=" + (worker.female ? "w " : "W ") + worker.getTurnMoves() + " " + start.row + " " + start.col + "\n");
+            if (worker.getTurnBuilds() > 0) {
+                Coordinate last = worker.getLastBuild();
+                out.write("TurnBuilds=" + worker.getTurnBuilds() + " " + last.row + " " + last.col + "\n");
+            }
+            if (godPowerActive) out.write("GodPowerActive=true\n");
+            return;
+        }
+    }
+
+    /**
+     * Gives the current player's worker that has moved back its turn record.
+     */
+    private static void restoreTurn(Game game, int[] turn, int[] builds) throws IOException {
+        Board board = game.getBoard();
+        Worker worker = game.getCurrentPlayer().getWorkers()[turn[0]];
+        if (worker.getCoordinate() == null || turn[1] < 1) throw new IOException("Turn= names a worker that has not moved");
+        if (builds != null && builds[0] < 1) throw new IOException("TurnBuilds= needs at least one build");
+        if (!board.isInBounds(turn[2], turn[3]) || (builds != null && !board.isInBounds(builds[1], builds[2]))) {
+            throw new IOException("Turn record is off the board");
+        }
+        Coordinate lastBuild = builds == null ? null : board.getCoordinate(builds[1], builds[2]);
+        worker.restoreTurn(turn[1], builds == null ? 0 : builds[0], board.getCoordinate(turn[2], turn[3]), lastBuild);
+    }
+
+    /**
+     * Creates the god named on a player line, or none for {@code None}.
+     */
+    private static God readGod(String name, int lineNumber) throws IOException {
+        if (name.equals("None")) return null;
+        God god = Game.stringToGod(name);
+        if (god == null) throw badLine(lineNumber, "unknown god " + name);
+        return god;
+    }
+
+    /**
+     * Finds the template named on the first line of a save.
+     */
+    static BoardTemplate findTemplate(String mapName, File directory) throws IOException {
+        if (mapName == null) throw new IOException("Save file is empty");
+        mapName = mapName.trim();
+        try {
+            if (mapName.matches("\\d+x\\d+")) {
+                String[] size = mapName.split("x");
+                return BoardTemplate.forSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            }
+
+            File[] candidates = {
+                    new File(directory, mapName),
+                    new File(directory == null ? null : directory.getParentFile(), "maps" + File.separator + mapName),
+                    new File("maps", mapName),
+            };
+            for (File candidate : candidates) {
+                if (candidate.isFile()) return BoardTemplate.forMap(candidate);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Map " + mapName + " is not a valid board: " + e.getMessage());
+        }
+        throw new IOException("Map " + mapName + " could not be found");
+    }
+
+    /**
+     * Builds the pieces listed on one line of the pieces section: a tower height, with a D if it
+     * is capped with a dome, followed by the row and column. Each space may be listed once, with
+     * a height of 1 to 3, and only a full tower can be domed.
+     */
+    private static void buildPieces(Board board, boolean[] built, String line, int lineNumber) throws IOException {
+        String[] parts = line.split(" ");
+        if (parts.length != 3) throw badLine(lineNumber, "expected height, row and column");
+        boolean domed = parts[0].endsWith("D");
+        int height = Integer.parseInt(domed ? parts[0].substring(0, parts[0].length() - 1) : parts[0]);
+        if (height < 1 || height > PieceRegistry.MAX_TOWER_HEIGHT) {
+            throw badLine(lineNumber, "tower height must be 1 to " + PieceRegistry.MAX_TOWER_HEIGHT);
+        }
+        if (domed && height != PieceRegistry.MAX_TOWER_HEIGHT) {
+            throw badLine(lineNumber, "only a tower of height " + PieceRegistry.MAX_TOWER_HEIGHT + " can have a dome");
+        }
+        Coordinate position = coordinate(board, parts[1], parts[2], lineNumber);
+        int cell = board.cellIndex(position);
+        String where = "(" + position.row + ", " + position.col + ")";
+        if (built[cell]) throw badLine(lineNumber, where + " is listed twice");
+        if (!board.getSpace(cell).isBuildable()) throw badLine(lineNumber, "cannot build on " + where);
+        built[cell] = true;
+        for (int level = 0; level < height; level++) {
+            board.buildPiece(PieceRegistry.nextPiece(level), position);
+        }
+        if (domed) board.buildPiece(PieceRegistry.dome(), position);
+    }
+
+    private static Coordinate coordinate(Board board, String row, String col, int lineNumber) throws IOException {
+        int x = Integer.parseInt(row);
+        int y = Integer.parseInt(col);
+        if (!board.isInBounds(x, y)) throw badLine(lineNumber, "(" + x + ", " + y + ") is off the board");
+        return board.getCoordinate(x, y);
+    }
+
+    private static IOException badLine(int lineNumber, String problem) {
+        return new IOException("Line " + lineNumber + " of save: " + problem);
+    }
+}
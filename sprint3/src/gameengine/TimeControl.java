@@ -0,0 +1,100 @@
+package gameengine;
+
+/**
+ * How much thinking time each player gets. Every player starts with the same amount of time,
+ * and after each turn:
+ * <ul>
+ *     <li>{@link Type#SUDDEN_DEATH}: nothing is given back, the clock only runs down.</li>
+ *     <li>{@link Type#FISCHER}: a fixed increment is added once the turn is over.</li>
+ *     <li>{@link Type#BRONSTEIN}: the first part of every turn, up to the delay, is free, so a
+ *     player can never gain time but loses none on quick turns.</li>
+ * </ul>
+ */
+public class TimeControl {
+
+    /**
+     * The kinds of time control.
+     */
+    public enum Type {
+        SUDDEN_DEATH,
+        FISCHER,
+        BRONSTEIN
+    }
+
+    /** The kind of time control. */
+    public final Type type;
+    /** Time each player starts with, in milliseconds. */
+    public final long initialMillis;
+    /** The Fischer increment or Bronstein delay in milliseconds, 0 for sudden death. */
+    public final long bonusMillis;
+
+    private TimeControl(Type type, long initialMillis, long bonusMillis) {
+        if (initialMillis <= 0) throw new IllegalArgumentException("Players need some time to start with");
+        if (bonusMillis < 0) throw new IllegalArgumentException("The increment or delay cannot be negative");
+        this.type = type;
+        this.initialMillis = initialMillis;
+        this.bonusMillis = bonusMillis;
+    }
+
+    /**
+     * @param initialMillis time each player has for the whole game
+     * @return a time control where the clock only runs down
+     */
+    public static TimeControl suddenDeath(long initialMillis) {
+        return new TimeControl(Type.SUDDEN_DEATH, initialMillis, 0);
+    }
+
+    /**
+     * @param initialMillis   time each player starts with
+     * @param incrementMillis time added to a player's clock after each of their turns
+     * @return a Fischer time control
+     */
+    public static TimeControl fischer(long initialMillis, long incrementMillis) {
+        return new TimeControl(Type.FISCHER, initialMillis, incrementMillis);
+    }
+
+    /**
+     * @param initialMillis time each player starts with
+     * @param delayMillis   how much of each turn is not taken off the clock
+     * @return a Bronstein delay time control
+     */
+    public static TimeControl bronstein(long initialMillis, long delayMillis) {
+        return new TimeControl(Type.BRONSTEIN, initialMillis, delayMillis);
+    }
+
+    /**
+     * Works out how much a turn costs on the clock.
+     *
+     * @param usedNanos how long the turn has taken so far
+     * @return the time to take off the player's clock, in nanoseconds
+     */
+    long charge(long usedNanos) {
+        if (type == Type.BRONSTEIN) return Math.max(0, usedNanos - bonusMillis * 1_000_000L);
+        return usedNanos;
+    }
+
+    /**
+     * @return the time given back after a finished turn, in nanoseconds
+     */
+    long refund() {
+        return type == Type.FISCHER ? bonusMillis * 1_000_000L : 0;
+    }
+
+    /**
+     * @return how long a turn can run before it starts costing anything, in nanoseconds
+     */
+    long grace() {
+        return type == Type.BRONSTEIN ? bonusMillis * 1_000_000L : 0;
+    }
+
+    @Override
+    public String toString() {
+        long seconds = initialMillis / 1000;
+        String base = String.format("%d:%02d", seconds / 60, seconds % 60);
+        return switch (type) {
+            case SUDDEN_DEATH -> base;
+            case FISCHER -> base + " + " + bonusMillis / 1000.0 + "s";
+            case BRONSTEIN -> base + " delay " + bonusMillis / 1000.0 + "s";
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package gui;
+
+import actions.MoveAction;
+import boardengine.Board;
+import boardengine.Coordinate;
+import boardengine.Space;
+import pieces.TileType;
+import pieces.Worker;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Paints the whole board, ocean padding included, onto one component instead of one button
+ * per space. Height labels and worker icons are drawn from images made once for the tile size,
+ * clicks are mapped back to spaces from the mouse position, and only the tiles that change are
+ * repainted. Moving workers slide between spaces instead of jumping.
+ */
+class BoardCanvas extends JComponent {
+
+    // Largest the painted board should be when a tile size is picked for it
+    private static final int TARGET_SIZE = 720;
+    private static final int MIN_TILE_SIZE = 24;
+    private static final int MAX_TILE_SIZE = 80;
+    private static final int ANIMATION_MILLIS = 160;
+    private static final int FRAME_MILLIS = 16;
+
+    private static final Color GRID = new Color(0, 0, 0, 60);
+    private static final Color SELECTABLE = new Color(255, 223, 100);
+    // Domed tiles are already filled blue, so the dome itself is lighter
+    private static final Color DOME = new Color(170, 200, 255);
+    private static final Stroke SELECTABLE_STROKE = new BasicStroke(3);
+    private static final Stroke GRID_STROKE = new BasicStroke(1);
+
+    private final GameBoardPanel panel;
+    private final Board board;
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    // Height labels for levels 1 to 3 and the dome, drawn once for this tile size
+    private final BufferedImage[] heightSprites = new BufferedImage[5];
+
+    // The worker sliding between two tiles, null when nothing is moving
+    private Worker movingWorker;
+    private Point moveFrom;
+    private Point moveTo;
+    private long moveStart;
+    private final Timer animationTimer;
+
+    /**
+     * Creates a canvas for a board.
+     *
+     * @param panel the panel the canvas belongs to, which keeps the tile colours and handles clicks
+     * @param board the board to paint
+     */
+    BoardCanvas(GameBoardPanel panel, Board board) {
+        this.panel = panel;
+        this.board = board;
+        this.rows = board.getDimensions().row + 2;
+        this.cols = board.getDimensions().col + 2;
+        this.tileSize = Math.max(MIN_TILE_SIZE, Math.min(MAX_TILE_SIZE, TARGET_SIZE / Math.max(rows, cols)));
+        for (int height = 1; height < heightSprites.length; height++) {
+            heightSprites[height] = createHeightSprite(height);
+        }
+
+        setPreferredSize(new Dimension(cols * tileSize, rows * tileSize));
+        setOpaque(true);
+        animationTimer = new Timer(FRAME_MILLIS, e -> stepAnimation());
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int row = e.getY() / tileSize;
+                int col = e.getX() / tileSize;
+                if (row < rows && col < cols && contains(e.getPoint())) {
+                    panel.tileClicked(row - 1, col - 1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Repaints a single tile.
+     *
+     * @param row the padded row index
+     * @param col the padded column index
+     */
+    void repaintTile(int row, int col) {
+        repaint(col * tileSize, row * tileSize, tileSize, tileSize);
+    }
+
+    /**
+     * Slides the worker of a move that has just been played from its start to its end.
+     *
+     * @param move the move that was played
+     */
+    void animateMove(MoveAction move) {
+        if (movingWorker != null) finishAnimation();
+        Coordinate start = move.getMoveStart();
+        Coordinate end = move.getMoveEnd();
+        movingWorker = move.getWorker();
+        moveFrom = new Point(start.col + 1, start.row + 1);
+        moveTo = new Point(end.col + 1, end.row + 1);
+        moveStart = System.nanoTime();
+        animationTimer.start();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Only the tiles inside the area being repainted are drawn
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int firstRow = Math.max(0, clip.y / tileSize);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height - 1) / tileSize);
+        int firstCol = Math.max(0, clip.x / tileSize);
+        int lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / tileSize);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintTile(g, row, col);
+            }
+        }
+
+        if (movingWorker != null) {
+            double progress = animationProgress();
+            int x = (int) Math.round((moveFrom.x + (moveTo.x - moveFrom.x) * progress) * tileSize);
+            int y = (int) Math.round((moveFrom.y + (moveTo.y - moveFrom.y) * progress) * tileSize);
+            paintWorker(g, movingWorker, x, y);
+        }
+    }
+
+    // ##### Private
+
+    private void paintTile(Graphics2D g, int row, int col) {
+        int x = col * tileSize;
+        int y = row * tileSize;
+        Space space = board.getSpace(row - 1, col - 1);
+
+        g.setColor(panel.tileBackground(row, col));
+        g.fillRect(x, y, tileSize, tileSize);
+        g.setColor(GRID);
+        g.drawRect(x, y, tileSize - 1, tileSize - 1);
+
+        int height = space.getHeight();
+        if (height > 0) {
+            g.drawImage(heightSprites[space.getTileType() == TileType.DOME ? 4 : Math.min(height, 3)], x, y, null);
+        }
+
+        // A moving worker is drawn on its own once every tile is painted
+        if (space.hasWorker() && space.getWorker() != movingWorker) {
+            Worker worker = space.getWorker();
+            paintWorker(g, worker, x, y);
+            if (panel.isSelectable(worker)) {
+                g.setColor(SELECTABLE);
+                g.setStroke(SELECTABLE_STROKE);
+                g.drawRect(x + 1, y + 1, tileSize - 3, tileSize - 3);
+                g.setStroke(GRID_STROKE);
+            }
+        }
+    }
+
+    private void paintWorker(Graphics2D g, Worker worker, int x, int y) {
+        int size = WorkerIcons.iconSize(tileSize);
+        int offset = (tileSize - size) / 2;
+        g.drawImage(WorkerIcons.getSprite(worker, size), x + offset, y + offset, null);
+    }
+
+    private BufferedImage createHeightSprite(int height) {
+        BufferedImage sprite = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        if (height == 4) {
+            // A dome is a circle capping the tower
+            int inset = tileSize / 6;
+            g.setColor(DOME);
+            g.fillOval(inset, inset, tileSize - inset * 2, tileSize - inset * 2);
+        } else {
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(10, tileSize / 5)));
+            FontMetrics metrics = g.getFontMetrics();
+            String label = String.valueOf(height);
+            g.drawString(label, tileSize - metrics.stringWidth(label) - 4, metrics.getAscent() + 2);
+        }
+        g.dispose();
+        return sprite;
+    }
+
+    private double animationProgress() {
+        double elapsed = (System.nanoTime() - moveStart) / 1_000_000.0;
+        return Math.min(1.0, elapsed / ANIMATION_MILLIS);
+    }
+
+    /**
+     * Repaints the two tiles the worker is sliding between, and stops once it arrives.
+     */
+    private void stepAnimation() {
+        repaintMove();
+        if (animationProgress() >= 1.0) finishAnimation();
+    }
+
+    private void finishAnimation() {
+        animationTimer.stop();
+        repaintMove();
+        movingWorker = null;
+    }
+
+    private void repaintMove() {
+        int x = Math.min(moveFrom.x, moveTo.x) * tileSize;
+        int y = Math.min(moveFrom.y, moveTo.y) * tileSize;
+        int width = (Math.abs(moveFrom.x - moveTo.x) + 1) * tileSize;
+        int height = (Math.abs(moveFrom.y - moveTo.y) + 1) * tileSize;
+        repaint(x, y, width, height);
+    }
+}
@@ -1,17 +1,23 @@
 package gui;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import java.awt.*;
 import java.util.*;
 
 
+import actions.Action;
 import actions.BuildAction;
 import actions.MoveAction;
+import actions.PlaceWorkerAction;
 import boardengine.Board;
+import boardengine.Coordinate;
 import boardengine.Space;
+import gameengine.BackgroundAnalysis;
 import gameengine.GameController;
 import gameengine.GamePhase;
 import pieces.Worker;
+import playerelements.Player;
 
 
 /**
@@ -20,17 +26,79 @@ import pieces.Worker;
  */
 public class GameBoardPanel extends JPanel{
 
+    /**
+     * How the board is drawn.
+     */
+    public enum RenderMode {
+        /** One button per space, the original look. */
+        BUTTONS,
+        /** The whole board painted onto one component, for large boards. */
+        CANVAS;
+
+        // Boards with more spaces than this, ocean included, are painted
+        private static final int MAX_BUTTON_TILES = 12 * 12;
+
+        /**
+         * Picks the mode for a board: buttons for standard sizes and painting for large maps.
+         * The {@code santorini.render} system property can force either mode.
+         *
+         * @param board the board to draw
+         * @return the mode to use
+         */
+        public static RenderMode forBoard(Board board) {
+            String forced = System.getProperty("santorini.render");
+            if (forced != null) return valueOf(forced.toUpperCase());
+            int tiles = (board.getDimensions().row + 2) * (board.getDimensions().col + 2);
+            return tiles > MAX_BUTTON_TILES ? CANVAS : BUTTONS;
+        }
+    }
+
+    private static final Color MOVE_HIGHLIGHT = new Color(255, 255, 180);
+    private static final Color BUILD_HIGHLIGHT = new Color(255, 200, 130);
+    private static final Color INVALID_HIGHLIGHT = new Color(255, 100, 100);
+    // Spaces an opponent could win on next turn, and the turn the background search suggests
+    private static final Color THREAT_HIGHLIGHT = new Color(215, 170, 255);
+    private static final Color HINT_HIGHLIGHT = new Color(180, 240, 255);
+    private static final Border SELECTABLE_BORDER = BorderFactory.createLineBorder(new Color(255, 223, 100), 3);
+
     private final Board board;
     private final int tileSize = 80;
     private final GameController controller;
 
+    // One button per space, ocean padding included, created once and updated in place
+    private final JButton[][] tiles;
+    private final Border defaultBorder;
+    // Used instead of the buttons when the board is painted
+    private final BoardCanvas canvas;
+    private final Color[][] baseColors;
+    private final int[][] shownHeights;
+    private final Color[][] highlights;
+    private final ArrayList<Coordinate> highlighted = new ArrayList<>();
+    // Tiles that need updating on the next refresh, as padded row and column
+    private final boolean[][] dirty;
+    private final ArrayList<Point> dirtyTiles = new ArrayList<>();
+    private Player shownPlayer;
+    private BackgroundAnalysis.Analysis analysis;
+
     /**
-     * Constructs a panel representing the Santorini game board.
+     * Constructs a panel representing the Santorini game board, drawn in the mode that suits
+     * its size.
      *
      * @param board the game board to render
      * @param controller the game controller for logic interaction
      */
     public GameBoardPanel(Board board,GameController controller){
+        this(board, controller, RenderMode.forBoard(board));
+    }
+
+    /**
+     * Constructs a panel representing the Santorini game board.
+     *
+     * @param board the game board to render
+     * @param controller the game controller for logic interaction
+     * @param mode how the board is drawn
+     */
+    public GameBoardPanel(Board board, GameController controller, RenderMode mode){
         this.board = board;
         this.controller = controller;
 
@@ -40,8 +108,47 @@ public class GameBoardPanel extends JPanel{
         // Getting the Height of the board + Ocean
         int boardHeight = board.getDimensions().col + 2;
 
-        setLayout(new GridLayout(boardWidth, boardHeight));
+        baseColors = new Color[boardWidth][boardHeight];
+        shownHeights = new int[boardWidth][boardHeight];
+        highlights = new Color[boardWidth][boardHeight];
+        dirty = new boolean[boardWidth][boardHeight];
+
+        for (int row = 0; row < boardWidth; row++) {
+            for (int col = 0; col < boardHeight; col++) {
+                Space space = board.getSpace(row - 1, col - 1);
+                baseColors[row][col] = TilePalette.colorFor(space);
+                shownHeights[row][col] = space.getHeight();
+            }
+        }
+
+        if (mode == RenderMode.CANVAS) {
+            setLayout(new BorderLayout());
+            tiles = null;
+            defaultBorder = null;
+            canvas = new BoardCanvas(this, board);
+            add(canvas, BorderLayout.CENTER);
+        } else {
+            setLayout(new GridLayout(boardWidth, boardHeight));
+            canvas = null;
+            tiles = new JButton[boardWidth][boardHeight];
+            for (int row = 0; row < boardWidth; row++) {
+                for (int col = 0; col < boardHeight; col++) {
+                    JButton tileButton = TileRenderer.createTileButton(board.getSpace(row - 1, col - 1));
+                    int finalRow = row - 1;
+                    int finalCol = col - 1;
+                    tileButton.addActionListener(e -> tileClicked(finalRow, finalCol));
+                    tiles[row][col] = tileButton;
+                    add(tileButton);
+                }
+            }
+            defaultBorder = tiles[0][0].getBorder();
+        }
+
+        // Only the spaces touched by an action need redrawing
+        board.addActionObserver(this::markAction);
         drawBoard();
+        controller.getAnalysis().addListener(this::analysisReady);
+        controller.requestAnalysis();
 
         SwingUtilities.invokeLater( () -> {
             welcomeMessage();
@@ -51,88 +158,185 @@ public class GameBoardPanel extends JPanel{
 
 
     /**
-     * Repaints the board by drawing each tile and setting its icon, color, and listener.
+     * Redraws every tile, for when the board has changed without an action being played.
      */
     public void drawBoard(){
-        removeAll();
-        revalidate();
-        repaint();
+        for (int row = 0; row < dirty.length; row++) {
+            for (int col = 0; col < dirty[row].length; col++) {
+                markDirty(row, col);
+            }
+        }
+        refresh();
+    }
 
-        Space[][] spaces = getBoardSpaces();
+    /**
+     * Updates the tiles changed since the last refresh: the spaces touched by played actions,
+     * the old and new highlights, and the workers whose border depends on whose turn it is.
+     */
+    public void refresh(){
+        Player player = controller.getCurrentPlayer();
+        if (player != shownPlayer) {
+            shownPlayer = player;
+            markWorkers();
+        }
+        updateHighlights();
 
-        for (int row = 0; row < spaces.length; row++) {
-            for (int col = 0; col < spaces[row].length; col++) {
-                Space space = spaces[row][col];
+        for (Point tile : dirtyTiles) {
+            updateTile(tile.x, tile.y);
+            dirty[tile.x][tile.y] = false;
+        }
+        dirtyTiles.clear();
+    }
 
-                space.refreshTile();
-                JButton tileButton = space.getTileButton();
 
-                if(space.hasWorker()){
-                    applyWorkerHighlight(tileButton, space.getWorker());
-                }
+    /**
+     * Plays a click on a space and updates whatever it changed.
+     *
+     * @param row the row of the space, -1 for the ocean padding
+     * @param col the column of the space, -1 for the ocean padding
+     */
+    void tileClicked(int row, int col){
+        controller.handleTileClick(row, col);
+        refresh();
+    }
+
+    /**
+     * Gets the colour a tile is filled with: its highlight, or else the colour of its space.
+     *
+     * @param row the padded row index
+     * @param col the padded column index
+     * @return the fill colour
+     */
+    Color tileBackground(int row, int col){
+        Color highlight = highlights[row][col];
+        return highlight != null ? highlight : baseColors[row][col];
+    }
+
+    /**
+     * Checks whether a worker is drawn as one the current player can select.
+     *
+     * @param worker the worker on a tile
+     * @return true if the worker belongs to the current player
+     */
+    boolean isSelectable(Worker worker){
+        return controller.getCurrentPlayer().ownsWorker(worker);
+    }
 
-                // Movement Highlighting
-                Color highlight = moveHighlight(row, col);
-                if (highlight != null) {
-                    tileButton.setBackground(highlight);
-                }
 
-                int finalRow = row - 1;
-                int finalCol = col - 1;
-                tileButton.addActionListener(e -> {
-                    controller.handleTileClick(finalRow, finalCol);
-                    drawBoard();
-                });
+    /**
+     * Brings one tile up to date with its space.
+     */
+    private void updateTile(int row, int col){
+        Space space = board.getSpace(row - 1, col - 1);
+        // Terrain colours are picked once so they do not change every time the tile is drawn
+        if (space.getHeight() != shownHeights[row][col]) {
+            shownHeights[row][col] = space.getHeight();
+            baseColors[row][col] = TilePalette.colorFor(space);
+        }
 
-                add(tileButton);
+        if (canvas != null) {
+            canvas.repaintTile(row, col);
+            return;
         }
+
+        JButton tileButton = tiles[row][col];
+        TileRenderer.updateTileButton(tileButton, space, tileBackground(row, col));
+
+        if(space.hasWorker()){
+            applyWorkerHighlight(tileButton, space.getWorker());
+        } else {
+            tileButton.setBorder(defaultBorder);
         }
     }
 
-
     /**
-     * Helper to fetch board state with ocean padding.
+     * Marks the spaces an action changed.
      */
-    private Space[][] getBoardSpaces(){
-        int totalWidth = board.getDimensions().row + 2;
-        int totalHeight = board.getDimensions().col + 2;
-        Space[][] boardSpaces = new Space [totalWidth][totalHeight];
+    private void markAction(Action action){
+        if (action instanceof MoveAction move) {
+            markDirty(move.getMoveStart());
+            markDirty(move.getMoveEnd());
+            if (canvas != null) canvas.animateMove(move);
+        } else if (action instanceof BuildAction build) {
+            markDirty(build.position);
+        } else if (action instanceof PlaceWorkerAction place) {
+            markDirty(place.getPosition());
+        }
+    }
 
-        for (int row = 0; row < totalWidth; row++){
-            for(int col = 0; col < totalHeight; col++){
-                boardSpaces[row][col] = board.getSpace(row - 1,col - 1);
+    /**
+     * Marks the space of every worker on the board.
+     */
+    private void markWorkers(){
+        for (Player player : controller.getGame().getPlayers()) {
+            for (Worker worker : player.getWorkers()) {
+                if (worker.getCoordinate() != null) markDirty(worker.getCoordinate());
             }
         }
-        return boardSpaces;
+    }
+
+    private void markDirty(Coordinate position){
+        markDirty(position.row + 1, position.col + 1);
+    }
+
+    private void markDirty(int row, int col){
+        if (dirty[row][col]) return;
+        dirty[row][col] = true;
+        dirtyTiles.add(new Point(row, col));
     }
 
     /**
-     * Highlights valid move/build options for the selected worker.
+     * Clears the previous highlights and works out the new ones, marking both as dirty.
      */
-    private Color moveHighlight(int row, int col){
-
-        if(controller.getSelectedWorker() == null){
-            return null;
+    private void updateHighlights(){
+        for (Coordinate position : highlighted) {
+            highlights[position.row + 1][position.col + 1] = null;
+            markDirty(position);
         }
+        highlighted.clear();
 
+        if(controller.getSelectedWorker() != null){
+            ArrayList<MoveAction> possibleMoves = controller.getPossibleMoves();
+            ArrayList<BuildAction> possibleBuilds = controller.getPossibleBuilds();
 
-        ArrayList<MoveAction> possibleMoves = controller.getPossibleMoves();
-        ArrayList<BuildAction> possibleBuilds = controller.getPossibleBuilds();
-
-        if(controller.getCurrentPhase() == GamePhase.MOVE && possibleMoves != null){
-            for (MoveAction move : possibleMoves){
-                if(move.getMoveEnd().row == (row - 1) && move.getMoveEnd().col == (col - 1)){
-                    return move.isValid() ? new Color(255,255,180) : new Color(255,100,100);
+            if(controller.getCurrentPhase() == GamePhase.MOVE && possibleMoves != null){
+                for (MoveAction move : possibleMoves){
+                    highlight(move.getMoveEnd(), move.isValid() ? MOVE_HIGHLIGHT : INVALID_HIGHLIGHT);
                 }
-            }
-        } else if (controller.getCurrentPhase() == GamePhase.BUILD && possibleBuilds != null){
-            for (BuildAction builds : possibleBuilds){
-                if(builds.position.row == (row - 1) && builds.position.col == (col - 1)){
-                    return builds.isValid() ? new Color(255, 200, 130) : new Color(255,100,100);
+            } else if (controller.getCurrentPhase() == GamePhase.BUILD && possibleBuilds != null){
+                for (BuildAction builds : possibleBuilds){
+                    highlight(builds.position, builds.isValid() ? BUILD_HIGHLIGHT : INVALID_HIGHLIGHT);
                 }
             }
         }
-return null;
+
+        // Background analysis is only shown while it still matches the board
+        if (analysis == null || analysis.positionKey != controller.getGame().getPositionKey()) return;
+        for (Coordinate threat : analysis.threats) {
+            highlight(threat, THREAT_HIGHLIGHT);
+        }
+        if (controller.getSelectedWorker() == null && analysis.hasHint()) {
+            highlight(analysis.hintWorker, HINT_HIGHLIGHT);
+            highlight(analysis.hintMove, HINT_HIGHLIGHT);
+        }
+    }
+
+    /**
+     * Shows the latest background analysis of the position.
+     */
+    private void analysisReady(BackgroundAnalysis.Analysis result){
+        analysis = result;
+        refresh();
+    }
+
+    /**
+     * Highlights a space, the first highlight given to a space wins.
+     */
+    private void highlight(Coordinate position, Color color){
+        if (highlights[position.row + 1][position.col + 1] != null) return;
+        highlights[position.row + 1][position.col + 1] = color;
+        highlighted.add(position);
+        markDirty(position);
     }
 
 
@@ -140,8 +344,8 @@ return null;
      * Visually marks the worker if it belongs to the current player.
      */
     private void applyWorkerHighlight(JButton tileButton, Worker worker) {
-        if (controller.getCurrentPlayer().ownsWorker(worker)) {
-            tileButton.setBorder(BorderFactory.createLineBorder(new Color(255, 223, 100), 3));
+        if (isSelectable(worker)) {
+            tileButton.setBorder(SELECTABLE_BORDER);
         } else {
             tileButton.setBorder(BorderFactory.createEmptyBorder());
         }
@@ -164,7 +368,7 @@ return null;
      */
     private void startTurnPlayerMessage(){
         JOptionPane.showMessageDialog(null,
-                "   It's" +controller.getCurrentPlayer().getName() + "'s turn!"  + " \n   This is your God Card: " + controller.getCurrentPlayer().getGod().getName() + "\n  Select your Worker to move them!",
+                "   It's" +controller.getCurrentPlayer().getName() + "'s turn!"  + " \n   This is your God Card: " + controller.getCurrentGod() + "\n  Select your Worker to move them!",
                 "Game Start",
                 JOptionPane.INFORMATION_MESSAGE
         );
@@ -2,18 +2,50 @@ package gui;
 
 
 
+import gameengine.GameController;
+
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
 
 
 public class GamePanel extends JPanel {
     GameBoardPanel gameBoardPanel;
     TimerPanel timerPanel;
+    GameController gameController;
 
-    public GamePanel(GameBoardPanel gameBoardPanel, TimerPanel timerPanel) {
+    public GamePanel(GameBoardPanel gameBoardPanel, TimerPanel timerPanel, GameController gameController) {
         this.gameBoardPanel = gameBoardPanel;
         this.timerPanel = timerPanel;
+        this.gameController = gameController;
         add(gameBoardPanel);
         add(timerPanel);
+
+        JButton saveButton = new JButton("Save Game");
+        saveButton.addActionListener(e -> saveGame(gameController));
+        add(saveButton);
+    }
+
+    /**
+     * Stops the game's clock and background analysis, so nothing is left running once the
+     * game is replaced.
+     */
+    public void dispose() {
+        timerPanel.stop();
+        gameController.getAnalysis().shutdown();
+    }
+
+    /**
+     * Asks where to save the game and writes it there.
+     */
+    private void saveGame(GameController gameController) {
+        JFileChooser chooser = new JFileChooser(new File("savefiles"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            gameController.saveGame(chooser.getSelectedFile());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Could not save game", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
 
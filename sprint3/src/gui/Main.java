@@ -1,10 +1,22 @@
 package gui;
 
 import boardengine.Board;
+import gameengine.Game;
 import gameengine.GameController;
+import gameengine.SaveFile;
+import gameengine.TimeControl;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Main application window for the Santorini game.
@@ -12,11 +24,20 @@ import java.awt.*;
  */
 public class Main extends JFrame {
 
+    // Taken as early as possible, so startup can be timed from the start of main
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
     private final CardLayout cardLayout;
     private final JPanel cardPanel;
+    // Screens are only built the first time they are shown
+    private final Map<String, Supplier<JComponent>> screenFactories = new HashMap<>();
+    private final Set<String> builtScreens = new HashSet<>();
+    private GamePanel gamePanel;
+    private boolean firstFramePainted = false;
 
     /**
-     * Initializes the main window and sets up all the screens.
+     * Initializes the main window and shows the main menu. The other screens are built when
+     * they are first shown.
      */
     public Main() {
         setTitle("Santorini Game");
@@ -28,8 +49,8 @@ public class Main extends JFrame {
         cardPanel = new JPanel(cardLayout);
 
         // Screens
-        cardPanel.add(new MainMenuPanel(this), "MainMenu");
-        cardPanel.add(new NewGamePanel(this), "NewGame");
+        screenFactories.put("MainMenu", () -> new MainMenuPanel(this));
+        screenFactories.put("NewGame", () -> new NewGamePanel(this));
 
         add(cardPanel);
         showPanel("MainMenu");
@@ -38,14 +59,33 @@ public class Main extends JFrame {
     }
 
     /**
-     * Shows the screen associated with the given name.
+     * Shows the screen associated with the given name, building it first if it has not been
+     * shown before.
      *
      * @param name the name of the screen (e.g., "MainMenu", "NewGame")
      */
     public void showPanel(String name) {
+        Supplier<JComponent> factory = screenFactories.get(name);
+        if (factory != null && builtScreens.add(name)) {
+            cardPanel.add(factory.get(), name);
+        }
         cardLayout.show(cardPanel, name);
     }
 
+    /**
+     * Paints the window, reporting how long startup took the first time.
+     *
+     * @param g the graphics to paint with
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!firstFramePainted) {
+            firstFramePainted = true;
+            System.err.printf("First frame painted %.0f ms after launch%s%n",
+                    (System.nanoTime() - LAUNCH_NANOS) / 1e6, sinceProcessStart());
+        }
+    }
 
     /**
      *
@@ -53,15 +93,78 @@ public class Main extends JFrame {
      * @param gameController
      */
     public void startNewGame(Board board, GameController gameController, TimerPanel timerPanel) {
-        cardPanel.add(new GamePanel(new GameBoardPanel(board, gameController), timerPanel), "GamePanel");
+        // Only the current game is kept, earlier games are stopped and dropped with their tiles
+        if (gamePanel != null) {
+            gamePanel.dispose();
+            cardPanel.remove(gamePanel);
+        }
+        gamePanel = new GamePanel(new GameBoardPanel(board, gameController), timerPanel, gameController);
+        cardPanel.add(gamePanel, "GamePanel");
         showPanel("GamePanel");
 
     }
 
+    /**
+     * Loads a saved game and carries on from where it was saved, including part way through a
+     * turn and with the time each player had left.
+     *
+     * @param file the save file
+     * @throws IOException if the save cannot be read
+     */
+    public void loadGame(File file) throws IOException {
+        SaveFile.SavedGame saved = SaveFile.load(file);
+        Game game = saved.game;
+        game.addGameListener(this::showVictoryDialog);
+        TimerPanel timerPanel = new TimerPanel(game, game.getCurrentPlayer().playerID,
+                TimeControl.suddenDeath(5 * 60 * 1000), saved.remainingMillis);
+        GameController gameController = new GameController(game, game.getBoard(), timerPanel);
+        gameController.resumeTurn(saved.phase, saved.godPowerActive);
+        startNewGame(game.getBoard(), gameController, timerPanel);
+    }
+
+    /**
+     * Shows the victory dialog and lets the players return to the menu or quit.
+     *
+     * @param winnerName the display name of the winner
+     */
+    public void showVictoryDialog(String winnerName) {
+        SwingUtilities.invokeLater(() -> {
+            int choice = JOptionPane.showOptionDialog(
+                    null,
+                    winnerName + " WINS!!! \nWhat would you like to do?",
+                    "Victory!",
+                    JOptionPane.DEFAULT_OPTION,
+                    JOptionPane.INFORMATION_MESSAGE,
+                    null,
+                    new String[]{"Exit to Menu", "Close Game"},
+                    "Exit to Menu"
+            );
+
+            if (choice == 0) {
+                showPanel("MainMenu");
+            } else if (choice == 1) {
+                System.exit(0);
+            }
+        });
+    }
+
     /**
      * Entry point of the application.
      */
     public static void main(String[] args) {
+        // Sprites and the rules engine are loaded in the background while the window opens
+        StartupWarmup.start(80).thenAccept(nanos ->
+                System.err.printf("Warm up finished in %.0f ms%n", nanos / 1e6));
         SwingUtilities.invokeLater(Main::new);
     }
+
+    /**
+     * Describes how long ago the process started, if the operating system can tell us.
+     */
+    private static String sinceProcessStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> String.format(" (%d ms after the process started)",
+                        Duration.between(start, Instant.now()).toMillis()))
+                .orElse("");
+    }
 }
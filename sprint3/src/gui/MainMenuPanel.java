@@ -2,10 +2,12 @@ package gui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Main menu screen shown when the game starts.
- * Allows the player to start a new game or quit the application.
+ * Allows the player to start a new game, load a saved game or quit the application.
  */
 public class MainMenuPanel extends JPanel {
 
@@ -30,8 +32,11 @@ public class MainMenuPanel extends JPanel {
         newGameButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         newGameButton.addActionListener(e -> frame.showPanel("NewGame"));
 
-        // Load Game button (not wired up yet)
+        // Load Game button
         JButton loadGameButton = new JButton("Load Game");
+        loadGameButton.setMaximumSize(new Dimension(200, 40));
+        loadGameButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        loadGameButton.addActionListener(e -> loadGame(frame));
 
         // Quit button
         JButton quitButton = new JButton("Quit Game");
@@ -44,8 +49,21 @@ public class MainMenuPanel extends JPanel {
         add(Box.createRigidArea(new Dimension(0, 50)));
         add(newGameButton);
         add(Box.createRigidArea(new Dimension(0, 20)));
-        // Add placeholder for loadGameButton if needed later
+        add(loadGameButton);
         add(Box.createRigidArea(new Dimension(0, 20)));
         add(quitButton);
     }
+
+    /**
+     * Asks for a save file and starts the game saved in it.
+     */
+    private void loadGame(Main frame) {
+        JFileChooser chooser = new JFileChooser(new File("savefiles"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            frame.loadGame(chooser.getSelectedFile());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Could not load game", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
@@ -57,7 +57,8 @@ public class NewGamePanel extends JPanel {
 
             // Create game components
             Board board = new Board(playableWidth, playableHeight);
-            Game game = new Game(board, numberOfPlayer, frame);
+            Game game = new Game(board, numberOfPlayer);
+            game.addGameListener(frame::showVictoryDialog);
             TimerPanel timerPanel = new TimerPanel(game, game.getCurrentPlayer().playerID, 5,0);
             GameController gameController = new GameController(game, board, timerPanel);
 
@@ -0,0 +1,58 @@
+package gui;
+
+import aiengine.TurnGenerator;
+import boardengine.Board;
+import boardengine.BoardTemplate;
+import gameengine.Game;
+import gameengine.PositionCodec;
+import playerelements.Player;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Gets the slow first-time work out of the way while the menu is on screen: decoding the worker
+ * sprites, and loading the rules engine by playing through the setup of a throwaway game. By the
+ * time a game is started from the menu none of this is left to do on the Event Dispatch Thread.
+ */
+class StartupWarmup {
+
+    /**
+     * Starts warming up on a low priority background thread.
+     *
+     * @param tileSize the tile size the worker icons will be shown at
+     * @return completes with the time the warm up took in nanoseconds
+     */
+    static CompletableFuture<Long> start(int tileSize) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                CompletableFuture<Void> sprites = WorkerIcons.preload(tileSize);
+                warmUpRules();
+                sprites.join();
+                done.complete(System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }, "santorini-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return done;
+    }
+
+    /**
+     * Sets up a game on the default board and generates its first turns, which loads and
+     * initialises the board, game, move generation and position classes.
+     */
+    private static void warmUpRules() {
+        Board board = BoardTemplate.forSize(5, 5).newBoard();
+        Game game = new Game(board, 2);
+        Player player = game.getCurrentPlayer();
+        TurnGenerator.generateTurns(board, player);
+
+        PositionCodec codec = new PositionCodec(board.getDimensions().size(), game.getPlayers().length);
+        codec.encode(game, ByteBuffer.allocate(codec.recordSize()));
+    }
+}
@@ -0,0 +1,45 @@
+package gui;
+
+import boardengine.Space;
+
+import java.awt.*;
+
+/**
+ * Chooses the colour used to draw a space, based on the type and height of its top piece.
+ */
+public class TilePalette {
+
+    /**
+     * Getter for the color of the tile
+     *
+     * @param space the space being drawn
+     * @return Color
+     */
+    public static Color colorFor(Space space) {
+        switch (space.getTileType()) {
+            case OCEAN:
+                return vary(95, 200, 190);
+            case GROUND:
+                return vary(140, 210, 80);
+            case TOWER:
+                int colorableHeight = space.getHeight() - 1;
+                int shade = 255 - (colorableHeight * 80);
+                return new Color(shade, shade, shade);
+            case DOME:
+                return Color.BLUE;
+            default:
+                return Color.GRAY;
+        }
+    }
+
+    /**
+     * Returns a colour with a small random variation so terrain does not look flat.
+     */
+    private static Color vary(int red, int green, int blue) {
+        int variation = (int)(Math.random() * 30) - 15;
+        int r = Math.max(0, Math.min(255, red + variation));
+        int g = Math.max(0, Math.min(255, green + variation));
+        int b = Math.max(0, Math.min(255, blue + variation));
+        return new Color(r, g, b);
+    }
+}
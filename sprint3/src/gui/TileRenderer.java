@@ -0,0 +1,46 @@
+package gui;
+
+import boardengine.Space;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Builds the Swing button used to display a single space of the board.
+ * Keeps all rendering state out of {@link Space} so the board model can run headless.
+ */
+public class TileRenderer {
+
+    /**
+     * Creates a tile button showing the colour, height and worker of a space.
+     *
+     * @param space the space to draw
+     * @return a button representing the space
+     */
+    public static JButton createTileButton(Space space) {
+        JButton tileButton = new JButton();
+        tileButton.setPreferredSize(new Dimension(80,80));
+        tileButton.setEnabled(true);
+        tileButton.setHorizontalAlignment(SwingConstants.CENTER);
+        tileButton.setVerticalAlignment(SwingConstants.CENTER);
+        updateTileButton(tileButton, space, TilePalette.colorFor(space));
+        return tileButton;
+    }
+
+    /**
+     * Brings an existing tile button up to date with its space. Swing only repaints the
+     * button if one of its properties actually changes.
+     *
+     * @param tileButton the button showing the space
+     * @param space      the space to draw
+     * @param background the colour to fill the tile with
+     */
+    public static void updateTileButton(JButton tileButton, Space space, Color background) {
+        tileButton.setBackground(background);
+        tileButton.setText(space.getHeight() > 0 ? String.valueOf(space.getHeight()) : null);
+
+        Icon icon = space.hasWorker() ? WorkerIcons.getIcon(space.getWorker()) : null;
+        tileButton.setIcon(icon);
+        tileButton.setDisabledIcon(icon);
+    }
+}
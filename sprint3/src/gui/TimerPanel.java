@@ -1,65 +1,147 @@
 package gui;
 
 import gameengine.Game;
-import gameengine.PlayerTimer;
+import gameengine.GameClock;
+import gameengine.TimeControl;
 import playerelements.Player;
 
 import javax.swing.*;
-import java.util.ArrayList;
 
 /**
- * Represents the TimerPanel to display the time each player has to complete their turns
+ * Represents the TimerPanel to display the time each player has to complete their turns.
+ * The time itself is kept by a {@link GameClock}; the panel only reads it to refresh the
+ * running player's label a few times a second.
  */
 public class TimerPanel extends JPanel {
-    PlayerTimer countdownTimer1;
-    PlayerTimer countdownTimer2;
+    // How often the running player's label is refreshed
+    private static final int REFRESH_MILLIS = 100;
+
     int currentPlayer;
-    int minutes;
-    int seconds;
     Game game;
-    ArrayList<PlayerTimer> countdownTimers;
+    private final GameClock clock;
+    private final JLabel[] labels;
+    private final Timer refresh;
+    private boolean stopped = false;
 
     /**
-     * Instantiates TimerPanel
+     * Instantiates TimerPanel with sudden death timers
      * @param game the game that is taking place
      * @param currentPlayer an integer representing the ID of the current player
      * @param minutes the number of minutes added to the timer
      * @param seconds the number of seconds added to the timer
      */
     public TimerPanel(Game game, int currentPlayer, int minutes, int seconds) {
-        this.game = game;
-        this.currentPlayer = currentPlayer;
-        this.minutes = minutes;
-        this.seconds = seconds;
-        this.countdownTimers = new ArrayList<>();
-        loadCountdown();
+        this(game, currentPlayer, TimeControl.suddenDeath((minutes * 60L + seconds) * 1000L));
+    }
+
+    /**
+     * Instantiates TimerPanel and starts the current player's time
+     * @param game the game that is taking place
+     * @param currentPlayer an integer representing the ID of the current player
+     * @param timeControl how much time the players get
+     */
+    public TimerPanel(Game game, int currentPlayer, TimeControl timeControl) {
+        this(game, currentPlayer, timeControl, null);
     }
 
     /**
-     * Starts the countdown timer for the current player
+     * Instantiates TimerPanel with the time each player had left in a saved game, and starts
+     * the current player's time
+     * @param game the game that is taking place
+     * @param currentPlayer an integer representing the ID of the current player
+     * @param timeControl how much time the players get
+     * @param remainingMillis the time each player has left in milliseconds, or null for a full clock
      */
-    private void loadCountdown() {
+    public TimerPanel(Game game, int currentPlayer, TimeControl timeControl, long[] remainingMillis) {
+        this.game = game;
+        this.currentPlayer = currentPlayer;
         Player[] players = game.getPlayers();
-        for (Player player : players) {
-            countdownTimers.add(new PlayerTimer(game, this, player.getPlayerID(), minutes, seconds));
+        this.clock = new GameClock(timeControl, players.length);
+        this.labels = new JLabel[players.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = new JLabel();
+            add(labels[i]);
         }
 
-        countdownTimers.get(currentPlayer).start();
+        // The clock reports from its own thread, the gui is only touched on the EDT
+        clock.addListener(player -> SwingUtilities.invokeLater(() -> timeExpired(player)));
+        refresh = new Timer(REFRESH_MILLIS, e -> updateLabel(this.currentPlayer));
+        refresh.setCoalesce(true);
+
+        if (remainingMillis != null) clock.setRemainingMillis(remainingMillis);
+        clock.start(currentPlayer);
+        for (int i = 0; i < labels.length; i++) {
+            updateLabel(i);
+        }
+        refresh.start();
     }
 
     /**
      * Stops the current player's timer, and starts the next player's timer
      */
     public void switchTurns() {
-        countdownTimers.get(currentPlayer).stop();
+        int previous = currentPlayer;
         nextPlayer();
-        countdownTimers.get(currentPlayer).start();
+        clock.switchTo(currentPlayer);
+        updateLabel(previous);
+        updateLabel(currentPlayer);
+    }
+
+    /**
+     * Stops the clock and the display for good, used when the game is abandoned. A player
+     * running out of time afterwards no longer ends the game.
+     */
+    public void stop() {
+        stopped = true;
+        refresh.stop();
+        clock.stop();
+    }
+
+    /**
+     * Gets how much time each player has left, used when saving the game
+     * @return the remaining time of each player in milliseconds
+     */
+    public long[] getRemainingMillis() {
+        return clock.getRemainingMillis();
+    }
+
+    /**
+     * Gets the clock the panel shows.
+     * @return the game clock
+     */
+    public GameClock getClock() {
+        return clock;
     }
 
     private void nextPlayer(){
         currentPlayer++;
-        if (currentPlayer > countdownTimers.size() - 1) {
+        if (currentPlayer > labels.length - 1) {
             currentPlayer = 0;
         }
     }
+
+    /**
+     * Shows a player's remaining time, with tenths of a second once under ten seconds.
+     */
+    private void updateLabel(int player) {
+        long millis = clock.getRemainingMillis(player);
+        long seconds = millis / 1000;
+        String time = millis < 10_000
+                ? String.format("%02d:%02d.%d", seconds / 60, seconds % 60, millis % 1000 / 100)
+                : String.format("%02d:%02d", seconds / 60, seconds % 60);
+        String text = "Player " + (player + 1) + ": " + time;
+        // Only changed text causes a repaint
+        if (!text.equals(labels[player].getText())) labels[player].setText(text);
+    }
+
+    /**
+     * Ends the game once a player is out of time. With two players the other player wins,
+     * otherwise the player after them does.
+     */
+    private void timeExpired(int player) {
+        if (stopped) return;
+        refresh.stop();
+        updateLabel(player);
+        game.declareWinner("Player " + ((player + 1) % labels.length + 1));
+    }
 }
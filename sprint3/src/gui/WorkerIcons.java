@@ -0,0 +1,146 @@
+package gui;
+
+import pieces.Worker;
+import pieces.workerfeatures.WorkerAppearance;
+import pieces.workerfeatures.WorkerAppearanceFactory;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and scales the icons described by a {@link WorkerAppearance}.
+ * Sprites are shared by the whole program and cached by player slot, gender and size, so each
+ * one is decoded and scaled once however many games are started. They are decoded straight into
+ * {@link BufferedImage}s, so nothing is left to load the first time a sprite is painted.
+ */
+public class WorkerIcons {
+
+    /**
+     * Number of player slots with their own icons, see {@link WorkerAppearanceFactory}.
+     */
+    public static final int PLAYER_SLOTS = 3;
+
+    // Source images by resource path, decoded once
+    private static final ConcurrentHashMap<String, BufferedImage> sources = new ConcurrentHashMap<>();
+    // Scaled images and their icons by sprite key
+    private static final ConcurrentHashMap<Integer, BufferedImage> sprites = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, ImageIcon> icons = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the icon representing a worker on a tile button.
+     *
+     * @param worker the worker being drawn
+     * @return the appropriate scaled ImageIcon
+     */
+    public static ImageIcon getIcon(Worker worker) {
+        int size = iconSize(worker.getAppearance().getTileSize());
+        return icons.computeIfAbsent(key(worker.ownerID, worker.isFemale(), size),
+                key -> new ImageIcon(getSprite(worker, size)));
+    }
+
+    /**
+     * Gets the worker's icon as an image already scaled to a size, for painting straight onto
+     * a canvas without any scaling at paint time.
+     *
+     * @param worker the worker being drawn
+     * @param size   the width and height of the image in pixels
+     * @return the scaled image
+     */
+    public static BufferedImage getSprite(Worker worker, int size) {
+        String path = worker.getAppearance().getIconPath(worker.isFemale());
+        return sprites.computeIfAbsent(key(worker.ownerID, worker.isFemale(), size), key -> scale(source(path), size));
+    }
+
+    /**
+     * Decodes and scales the sprites of every player slot for the given tile sizes, in parallel
+     * on the common pool. Sprites that are already cached are skipped.
+     *
+     * @param tileSizes the tile sizes the icons will be shown on
+     * @return completes once every sprite is cached
+     */
+    public static CompletableFuture<Void> preload(int... tileSizes) {
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        for (int slot = 0; slot < PLAYER_SLOTS; slot++) {
+            WorkerAppearance appearance = WorkerAppearanceFactory.getAppearanceForPlayer(slot);
+            for (boolean female : new boolean[]{true, false}) {
+                int playerSlot = slot;
+                String path = appearance.getIconPath(female);
+                loads.add(CompletableFuture.runAsync(() -> {
+                    for (int tileSize : tileSizes) {
+                        int size = iconSize(tileSize);
+                        BufferedImage sprite = sprites.computeIfAbsent(key(playerSlot, female, size),
+                                key -> scale(source(path), size));
+                        icons.computeIfAbsent(key(playerSlot, female, size), key -> new ImageIcon(sprite));
+                    }
+                }));
+            }
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Gets the worker's color based on gender and player ID.
+     *
+     * @param worker the worker being drawn
+     * @return the assigned color
+     */
+    public static Color getColor(Worker worker) {
+        return new Color(worker.getAppearance().getColor(worker.isFemale()));
+    }
+
+    // ##### Private
+
+    /**
+     * Size of the icon drawn on a tile, half the tile so there is a margin around it.
+     */
+    static int iconSize(int tileSize) {
+        return tileSize / 2;
+    }
+
+    private static int key(int slot, boolean female, int size) {
+        return slot << 17 | (female ? 1 << 16 : 0) | size;
+    }
+
+    private static BufferedImage source(String path) {
+        return sources.computeIfAbsent(path, WorkerIcons::decode);
+    }
+
+    private static BufferedImage decode(String path) {
+        URL resource = ClassLoader.getSystemResource(path);
+        if (resource == null) throw new IllegalStateException("Missing worker icon " + path);
+        try {
+            return ImageIO.read(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read worker icon " + path, e);
+        }
+    }
+
+    /**
+     * Scales an image down to a square sprite, halving it in steps so large icons stay smooth.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(size, width / 2);
+            height = Math.max(size, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = step;
+        } while (width > size || height > size);
+        return current;
+    }
+}
@@ -1,7 +1,5 @@
 package pieces;
 
-import java.awt.*;
-
 /**
  * Represents the final piece that can be placed on top of a tower.
  * Domes are not traversable or buildable, and they complete the structure.
@@ -38,13 +36,4 @@ public class Dome extends colorablePiece {
     public TileType getTileType() {
         return tileType;
     }
-
-    /**
-     * Getter for the color of the tile
-     * @return Color
-     */
-    @Override
-    public Color getTileColor() {
-        return Color.BLUE;
-    }
 }
@@ -1,7 +1,5 @@
 package pieces;
 
-import java.awt.*;
-
 /**
  * Represents a ground tile — the basic, walkable surface of the board.
  * Ground tiles can be built upon but cannot be removed.
@@ -37,18 +35,4 @@ public class Ground extends colorablePiece {
     public TileType getTileType() {
         return tileType;
     }
-
-    /**
-     * Getter for the color of the tile
-     * @return Color
-     */
-    @Override
-    public Color getTileColor() {
-        int variation = (int)(Math.random() * 30) - 15;
-
-        int r = Math.max(0, Math.min(255, 140 + variation));
-        int g = Math.max(0, Math.min(255, 210 + variation));
-        int b = Math.max(0, Math.min(255, 80 + variation));
-        return new Color(r, g, b);
-    }
 }
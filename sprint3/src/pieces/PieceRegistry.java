@@ -0,0 +1,86 @@
+package pieces;
+
+/**
+ * Holds one shared instance of every terrain piece. Terrain pieces never change once created,
+ * so every space and every build can point at the same objects instead of allocating new ones.
+ */
+public class PieceRegistry {
+
+    /**
+     * Highest tower level before a dome has to be built.
+     */
+    public static final int MAX_TOWER_HEIGHT = 3;
+
+    private static final Ground GROUND = new Ground();
+    private static final Ocean OCEAN = new Ocean();
+    private static final Dome DOME = new Dome();
+    private static final Tower[] TOWERS = new Tower[MAX_TOWER_HEIGHT + 1];
+
+    static {
+        for (int height = 1; height <= MAX_TOWER_HEIGHT; height++) {
+            TOWERS[height] = new Tower(height);
+        }
+    }
+
+    /**
+     * @return the shared ground piece
+     */
+    public static Ground ground() {
+        return GROUND;
+    }
+
+    /**
+     * @return the shared ocean piece
+     */
+    public static Ocean ocean() {
+        return OCEAN;
+    }
+
+    /**
+     * @return the shared dome piece
+     */
+    public static Dome dome() {
+        return DOME;
+    }
+
+    /**
+     * Gets the shared tower segment for a level.
+     *
+     * @param height the tower level (1 to {@link #MAX_TOWER_HEIGHT})
+     * @return the tower segment
+     */
+    public static Tower tower(int height) {
+        if (height < 1 || height > MAX_TOWER_HEIGHT) {
+            throw new IllegalArgumentException("There is no tower level " + height);
+        }
+        return TOWERS[height];
+    }
+
+    /**
+     * Gets the piece that is built on top of a space of the given height:
+     * the next tower level, or a dome on top of a third level.
+     *
+     * @param height the current height of the space
+     * @return the piece to build
+     */
+    public static colorablePiece nextPiece(int height) {
+        return height >= MAX_TOWER_HEIGHT ? DOME : tower(height + 1);
+    }
+
+    /**
+     * Gets the terrain piece for a map character.
+     *
+     * @param character 'O' for ocean or '.' for ground
+     * @return the terrain piece, or null if the character is unknown
+     */
+    public static colorablePiece terrain(char character) {
+        switch (character) {
+            case 'O':
+                return OCEAN;
+            case '.':
+                return GROUND;
+            default:
+                return null;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package pieces;
 
-import java.awt.*;
-
 /**
  * Represents a tower segment on the board.
  * Towers can be stacked up to a certain height and are both buildable and traversable.
@@ -15,6 +13,7 @@ public class Tower extends colorablePiece {
 
     /**
      * Creates a new tower segment with the given height.
+     * Use {@link PieceRegistry#tower(int)} for the shared instance instead of creating new ones.
      *
      * @param height the height level of this tower (1–3 typically)
      */
@@ -46,14 +45,4 @@ public class Tower extends colorablePiece {
     public TileType getTileType() {
         return tileType;
     }
-
-    /**
-     * Getter for the color of the tile
-     * @return Color
-     */
-    @Override
-    public Color getTileColor() {
-        int colorableHeight = height-1;
-        return  new Color(255-(colorableHeight*80), 255-(colorableHeight*80), 255-(colorableHeight*80)) ;
-    }
 }
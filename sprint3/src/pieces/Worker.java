@@ -2,8 +2,10 @@ package pieces;
 
 import actions.Action;
 import actions.BuildAction;
+import actions.InvalidReason;
 import actions.MoveAction;
 import actions.PlaceWorkerAction;
+import boardengine.BitBoard;
 import boardengine.Board;
 import boardengine.Coordinate;
 import boardengine.Space;
@@ -11,8 +13,6 @@ import pieces.workerfeatures.WorkerAppearance;
 import playerelements.History;
 import playerelements.Player;
 
-import javax.swing.*;
-import java.awt.*;
 import java.util.ArrayList;
 
 /**
@@ -28,6 +28,13 @@ public class Worker extends Piece {
     public final int ownerID;
 
     private History history;
+    // What the worker has done this turn, read by the god power hooks
+    private int turnMoves;
+    private int turnBuilds;
+    private Coordinate turnStart;
+    private Coordinate lastBuild;
+    // The actions behind the history and the turn record, replayed when a turn is undone
+    private final ArrayList<Action> turnActions = new ArrayList<>();
     private boolean active;
     private final WorkerAppearance appearance;
     private final Board board;
@@ -98,9 +105,8 @@ public class Worker extends Piece {
      * @param coord the destination coordinate
      */
     public void setCoordinate(Coordinate coord) {
-        Space space = board.getSpace(coord);
         if (this.coordinate == null) {
-            space.addWorker(this);
+            board.placeWorker(this, coord);
         } else {
             board.moveWorker(this, this.coordinate, coord);
         }
@@ -108,21 +114,21 @@ public class Worker extends Piece {
     }
 
     /**
-     * Gets the worker's color based on gender and player ID.
-     *
-     * @return the assigned color
+     * Takes the worker off the board. Used to revert a placement.
      */
-    public Color getColor() {
-        return appearance.getColor(female);
+    public void removeFromBoard() {
+        assert (this.coordinate != null);
+        board.removeWorker(this, this.coordinate);
+        this.coordinate = null;
     }
 
     /**
-     * Gets the icon representing this worker.
+     * Gets the appearance used by the gui to draw this worker.
      *
-     * @return the appropriate scaled ImageIcon
+     * @return the worker's appearance
      */
-    public Icon getIcon() {
-        return appearance.getIcon(female);
+    public WorkerAppearance getAppearance() {
+        return appearance;
     }
 
     /**
@@ -139,7 +145,7 @@ public class Worker extends Piece {
         for (int row = 0; row < board.getDimensions().row; row++) {
             for (int col = 0; col < board.getDimensions().col; col++) {
                 if (!board.getSpace(row, col).isTraversable()) continue;
-                Coordinate coord = new Coordinate(row, col);
+                Coordinate coord = board.getCoordinate(row, col);
                 actions.add(new PlaceWorkerAction(this, coord));
             }
         }
@@ -156,14 +162,14 @@ public class Worker extends Piece {
      */
     public ArrayList<MoveAction> getMoveActions(Board board) {
         Space space = board.getSpace(coordinate);
-        Coordinate[] neighbours = coordinate.getAjacencies();
+        int[] neighbours = board.getNeighbours(board.cellIndex(coordinate));
 
         // Creates new MoveActionlist
-        ArrayList<MoveAction> actions = new ArrayList<>();
+        ArrayList<MoveAction> actions = new ArrayList<>(neighbours.length);
 
-        // Adds the neighbour coordinates
-        for (Coordinate neighbourCoord : neighbours) {
-            actions.add(getMove(space, board.getSpace(neighbourCoord)));
+        // Adds the on-board neighbours
+        for (int neighbour : neighbours) {
+            actions.add(getMove(space, board.getSpace(neighbour)));
         }
 
         return actions;
@@ -176,16 +182,81 @@ public class Worker extends Piece {
      * @return an ArrayList of build actions
      */
     public ArrayList<BuildAction> getBuildActions(Board board) {
-        Coordinate[] neighbours = coordinate.getAjacencies();
-        ArrayList<BuildAction> actions = new ArrayList<>();
+        int[] neighbours = board.getNeighbours(board.cellIndex(coordinate));
+        ArrayList<BuildAction> actions = new ArrayList<>(neighbours.length);
 
-        for (Coordinate neighbour : neighbours) {
+        for (int neighbour : neighbours) {
             actions.add(getBuild(board.getSpace(neighbour)));
         }
 
         return actions;
     }
 
+    /**
+     * Writes the cells this worker can legally move to into the given buffer, without creating
+     * any actions. Use {@link #createMove(Board, int)} once a destination has been chosen.
+     *
+     * @param board  the game board
+     * @param buffer receives the destination cell indices, must hold {@link Board#MAX_NEIGHBOURS}
+     * @return the number of legal destinations written
+     */
+    public int getLegalMoveCells(Board board, int[] buffer) {
+        int cell = board.cellIndex(coordinate);
+        BitBoard bitBoard = board.getBitBoard();
+        if (bitBoard != null) return writeCells(bitBoard.moveTargets(cell), buffer);
+
+        int height = board.getSpace(cell).getHeight();
+        int count = 0;
+        for (int neighbour : board.getNeighbours(cell)) {
+            Space end = board.getSpace(neighbour);
+            if (end.isTraversable() && end.getHeight() - height < 2) buffer[count++] = neighbour;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the cells this worker can legally build on into the given buffer, without creating
+     * any actions. Use {@link #createBuild(Board, int)} once a location has been chosen.
+     *
+     * @param board  the game board
+     * @param buffer receives the build cell indices, must hold {@link Board#MAX_NEIGHBOURS}
+     * @return the number of legal build locations written
+     */
+    public int getLegalBuildCells(Board board, int[] buffer) {
+        int cell = board.cellIndex(coordinate);
+        BitBoard bitBoard = board.getBitBoard();
+        if (bitBoard != null) return writeCells(bitBoard.buildTargets(cell), buffer);
+
+        int count = 0;
+        for (int neighbour : board.getNeighbours(cell)) {
+            Space target = board.getSpace(neighbour);
+            if (!target.hasWorker() && target.isBuildable()) buffer[count++] = neighbour;
+        }
+        return count;
+    }
+
+    /**
+     * Creates the move action for moving this worker to a cell.
+     *
+     * @param board the game board
+     * @param cell  the destination cell index
+     * @return the move action, marked as a win condition where it applies
+     */
+    public MoveAction createMove(Board board, int cell) {
+        return getMove(board.getSpace(coordinate), board.getSpace(cell));
+    }
+
+    /**
+     * Creates the build action for building on a cell next to this worker.
+     *
+     * @param board the game board
+     * @param cell  the cell index to build on
+     * @return the build action
+     */
+    public BuildAction createBuild(Board board, int cell) {
+        return getBuild(board.getSpace(cell));
+    }
+
     /**
      * Generates build actions for your friend's worker
      * @param board the game board
@@ -202,9 +273,9 @@ public class Worker extends Piece {
         }
 
         Worker friend = this.owner.getWorkers()[friendID];
-        Coordinate[] friendNeighbours = friend.getCoordinate().getAjacencies();
+        int[] friendNeighbours = board.getNeighbours(board.cellIndex(friend.getCoordinate()));
 
-        for (Coordinate neighbour : friendNeighbours) {
+        for (int neighbour : friendNeighbours) {
             actions.add(getBuild(board.getSpace(neighbour)));
         }
 
@@ -223,24 +294,17 @@ public class Worker extends Piece {
             move.setAsWinCondition();
         }
 
-        StringBuilder invalidReason = new StringBuilder("Invalid Move for Following Reasons:\n");
-        boolean invalid = false;
-
-        // if movement is greater than 2 floors
+        // Reasons are recorded as flags; the text is only built if someone reads it
         if (move.heightDifference >= 2) {
-            invalidReason.append("\t-Worker cannot jump up more than 2 blocks.\n");
-            invalid = true;
+            move.setAsInvalid(InvalidReason.CLIMB_TOO_HIGH);
         }
         if (end.hasWorker() && !end.getWorker().isTraversable()) {
-            invalidReason.append("\t-Worker cannot move to another space with a worker on it.\n");
-            invalid = true;
+            move.setAsInvalid(InvalidReason.MOVE_ONTO_WORKER);
         }
         if (!end.isTraversable()) {
-            invalidReason.append("\t-Worker cannot move to space with untraversable piece ").append(end.getName()).append(".\n");
-            invalid = true;
+            move.setAsInvalid(InvalidReason.UNTRAVERSABLE_PIECE, end.getName());
         }
 
-        if (invalid) move.setAsInvalid(invalidReason.toString());
         return move;
     }
 
@@ -249,30 +313,24 @@ public class Worker extends Piece {
      */
     private BuildAction getBuild(Space targetPosition) {
         int height = targetPosition.getHeight();
-        colorablePiece buildPiece = height == 3 ? new Dome() : new Tower(height + 1);
+        colorablePiece buildPiece = PieceRegistry.nextPiece(height);
 
         BuildAction build = new BuildAction(this, buildPiece, targetPosition.coordinate);
 
         // For a dome
         if (height == 4) {
-            build.setAsInvalid("Cannot build on dome");
+            build.setAsInvalid(InvalidReason.BUILD_ON_DOME);
             return build;
         }
 
-        StringBuilder invalidReason = new StringBuilder("Invalid Build for Following Reasons:\n");
-        boolean invalid = false;
-
         if (targetPosition.hasWorker() && !targetPosition.getWorker().isBuildable()) {
-            invalidReason.append("\t-Cannot build on top of this worker.\n");
-            invalid = true;
+            build.setAsInvalid(InvalidReason.BUILD_ON_WORKER);
         }
 
         if (!targetPosition.isBuildable()) {
-            invalidReason.append("\t-Cannot build on top of piece ").append(targetPosition.getName()).append(".\n");
-            invalid = true;
+            build.setAsInvalid(InvalidReason.UNBUILDABLE_PIECE, targetPosition.getName());
         }
 
-        if (invalid) build.setAsInvalid(invalidReason.toString());
         return build;
     }
 
@@ -284,10 +342,68 @@ public class Worker extends Piece {
     public void processTurn(Action selectedAction) {
         selectedAction.processAction(board);
         addToHistory(selectedAction);
+        board.actionPlayed(selectedAction);
+    }
+
+    /**
+     * Applies the action through the board's undo journal and records it in history.
+     * Used to explore turns in place, including god powers that read the history.
+     * Undoing the action also puts the history and the turn record back as they were.
+     *
+     * @param action the action to try
+     */
+    public void applyTurn(Action action) {
+        Action[] actions = turnActions.toArray(new Action[0]);
+        int moves = turnMoves;
+        int builds = turnBuilds;
+        Coordinate start = turnStart;
+        Coordinate built = lastBuild;
+        action.apply(board);
+        addToHistory(action);
+        board.recordChange(b -> restoreHistory(actions, moves, builds, start, built));
     }
 
-    private void addToHistory(Action action) {
+    /**
+     * Puts the history and the turn record back to what they were before an action was
+     * applied, when that action is undone.
+     */
+    private void restoreHistory(Action[] actions, int moves, int builds, Coordinate start, Coordinate built) {
+        history.reset();
+        turnActions.clear();
+        for (Action action : actions) {
+            action.processHistory(history);
+            turnActions.add(action);
+        }
+        restoreTurn(moves, builds, start, built);
+    }
+
+    /**
+     * Writes the cell indices of every set bit of a mask into a buffer.
+     */
+    private static int writeCells(long mask, int[] buffer) {
+        int count = 0;
+        while (mask != 0) {
+            buffer[count++] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Records an action in the worker's history without playing it, used to rebuild the
+     * history of a turn that is being explored.
+     *
+     * @param action the action to record
+     */
+    public void addToHistory(Action action) {
         action.processHistory(history);
+        turnActions.add(action);
+        if (action instanceof MoveAction) {
+            if (turnMoves++ == 0) turnStart = ((MoveAction) action).getMoveStart();
+        } else if (action instanceof BuildAction) {
+            turnBuilds++;
+            lastBuild = ((BuildAction) action).position;
+        }
     }
 
     public Coordinate getCoordinate() {
@@ -307,10 +423,59 @@ public class Worker extends Piece {
         return history;
     }
 
+    /**
+     * @return the number of moves the worker has made this turn
+     */
+    public int getTurnMoves() {
+        return turnMoves;
+    }
+
+    /**
+     * @return the number of builds the worker has made this turn
+     */
+    public int getTurnBuilds() {
+        return turnBuilds;
+    }
+
+    /**
+     * @return the space the worker started the turn on, or null if it has not moved yet
+     */
+    public Coordinate getTurnStart() {
+        return turnStart;
+    }
+
+    /**
+     * @return the space the worker last built on this turn, or null if it has not built yet
+     */
+    public Coordinate getLastBuild() {
+        return lastBuild;
+    }
+
+    /**
+     * Sets what the worker has done this turn, used when a game saved part way through a turn
+     * is loaded. The worker's history itself is left empty.
+     *
+     * @param moves      the number of moves made this turn
+     * @param builds     the number of builds made this turn
+     * @param start      the space the worker started the turn on
+     * @param lastBuild  the space last built on, or null if the worker has not built
+     */
+    public void restoreTurn(int moves, int builds, Coordinate start, Coordinate lastBuild) {
+        turnMoves = moves;
+        turnBuilds = builds;
+        turnStart = start;
+        this.lastBuild = lastBuild;
+    }
+
     /**
      * Clears the worker's action history.
      */
     public void resetHistory() {
         history.reset();
+        turnActions.clear();
+        turnMoves = 0;
+        turnBuilds = 0;
+        turnStart = null;
+        lastBuild = null;
     }
 }
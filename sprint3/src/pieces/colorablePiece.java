@@ -1,9 +1,8 @@
 package pieces;
 
-import java.awt.*;
-
 /**
- * abstract class for pieces that is 'colorable' when displayed to the screen
+ * abstract class for pieces that is 'colorable' when displayed to the screen.
+ * The colours themselves are chosen by the gui from the piece's TileType.
  */
 public abstract class colorablePiece extends Piece {
     /**
@@ -17,10 +16,4 @@ public abstract class colorablePiece extends Piece {
      * @return TileType
      */
     public abstract TileType getTileType();
-
-    /**
-     * Getter for the color of the tile
-     * @return Color
-     */
-    public abstract Color getTileColor();
 }
@@ -1,73 +1,62 @@
 package pieces.workerfeatures;
 
-import javax.swing.*;
-import java.awt.*;
-
 /**
- * Stores appearance details for a player's worker, including colors and icons
- * for both male and female workers. Also handles scaling based on tile size.
+ * Stores appearance details for a player's worker, including colors and icon resources
+ * for both male and female workers. This only describes the look of a worker; loading
+ * and scaling the icons is left to the gui so the game model stays headless.
  */
 public class WorkerAppearance {
 
-    private final Color maleColor;
-    private final Color femaleColor;
-    private final ImageIcon maleIcon;
-    private final ImageIcon femaleIcon;
+    private final int maleColor;
+    private final int femaleColor;
+    private final String maleIconPath;
+    private final String femaleIconPath;
     private final int tileSize;
 
     /**
      * Creates a new appearance for a worker with different visuals
      * based on gender.
      *
-     * @param femaleColor color used for female workers
-     * @param maleColor color used for male workers
-     * @param femaleIcon icon used for female workers
-     * @param maleIcon icon used for male workers
+     * @param femaleColor RGB color used for female workers
+     * @param maleColor RGB color used for male workers
+     * @param femaleIconPath resource path of the icon used for female workers
+     * @param maleIconPath resource path of the icon used for male workers
      * @param tileSize the desired size for rendering icons
      */
-    public WorkerAppearance(Color femaleColor, Color maleColor, ImageIcon femaleIcon, ImageIcon maleIcon, int tileSize) {
+    public WorkerAppearance(int femaleColor, int maleColor, String femaleIconPath, String maleIconPath, int tileSize) {
         this.femaleColor = femaleColor;
         this.maleColor = maleColor;
         this.tileSize = tileSize;
-        this.femaleIcon = scaleIcon(femaleIcon);
-        this.maleIcon = scaleIcon(maleIcon);
+        this.femaleIconPath = femaleIconPath;
+        this.maleIconPath = maleIconPath;
     }
 
     /**
-     * Returns the color associated with the worker's gender.
+     * Returns the RGB color associated with the worker's gender.
      *
      * @param female true if the worker is female
-     * @return the appropriate color
+     * @return the appropriate color as 0xRRGGBB
      */
-    public Color getColor(boolean female) {
+    public int getColor(boolean female) {
         return female ? femaleColor : maleColor;
     }
 
     /**
-     * Returns the icon associated with the worker's gender.
+     * Returns the resource path of the icon associated with the worker's gender.
      *
      * @param female true if the worker is female
-     * @return the scaled icon image
+     * @return the icon resource path
      */
-    public ImageIcon getIcon(boolean female) {
-        return female ? femaleIcon : maleIcon;
+    public String getIconPath(boolean female) {
+        return female ? femaleIconPath : maleIconPath;
     }
 
     /**
-     * Scales the provided icon to fit the tile size.
+     * Returns the tile size the icons should be scaled for.
      *
-     * @param originalIcon the original image icon
-     * @return a scaled version of the icon
+     * @return the tile size in pixels
      */
-    private ImageIcon scaleIcon(ImageIcon originalIcon) {
-        if (originalIcon == null) {
-            return null;
-        }
-
-        // Take the origional image
-        Image originalImage = originalIcon.getImage();
-        // Scale the image
-        Image scaledImage = originalImage.getScaledInstance(tileSize-40, tileSize-40, Image.SCALE_SMOOTH);
-        return new ImageIcon(scaledImage);
+    public int getTileSize() {
+        return tileSize;
     }
 }
@@ -1,56 +1,54 @@
 package pieces.workerfeatures;
 
-import javax.swing.*;
-import java.awt.*;
-
 /**
  * Factory class for generating {@link WorkerAppearance} objects based on player ID.
- * Each player is assigned a unique color and icon set.
+ * Each player is assigned a unique color and icon set. Appearances never change, so one
+ * shared instance is handed out per player slot.
  */
 public class WorkerAppearanceFactory {
 
+    private static final WorkerAppearance[] APPEARANCES = {
+            new WorkerAppearance(
+                    0x00FFFF, // cyan
+                    0x0000FF, // blue
+                    "assets/workericons/female_worker_red.png",
+                    "assets/workericons/male_worker_red.png",
+                    80
+            ),
+            new WorkerAppearance(
+                    0xFF00FF, // magenta
+                    0xFFAFAF, // pink
+                    "assets/workericons/female_worker_blue.png",
+                    "assets/workericons/male_worker_blue.png",
+                    80
+            ),
+            new WorkerAppearance(
+                    0xCC6600,
+                    0xFF8000,
+                    "assets/workericons/female_worker_brown.png",
+                    "assets/workericons/male_worker_brown.png",
+                    80
+            ),
+    };
+
+    // Fallback style if the player ID is unexpected
+    private static final WorkerAppearance DEFAULT_APPEARANCE = new WorkerAppearance(
+            0x808080, // gray
+            0x404040, // dark gray
+            "assets/workericons/FemaleWorkerBlack.png",
+            "assets/workericons/MaleWorkerBlack.png",
+            80
+    );
+
     /**
      * Returns a WorkerAppearance based on the given player ID.
      * Provides distinct colors and icons for each player to differentiate them visually.
      *
      * @param playerID the ID of the player (e.g. 0, 1, or 2)
-     * @return a configured WorkerAppearance for the player
+     * @return the shared WorkerAppearance for the player
      */
     public static WorkerAppearance getAppearanceForPlayer(int playerID) {
-        switch (playerID) {
-            case 0:
-                return new WorkerAppearance(
-                        Color.CYAN,
-                        Color.BLUE,
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/female_worker_red.png")),
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/male_worker_red.png")),
-                        80
-                );
-            case 1:
-                return new WorkerAppearance(
-                        Color.MAGENTA,
-                        Color.PINK,
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/female_worker_blue.png")),
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/male_worker_blue.png")),
-                        80
-                );
-            case 2:
-                return new WorkerAppearance(
-                        new Color(204, 102, 0),
-                        new Color(255, 128, 0),
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/female_worker_brown.png")),
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/male_worker_brown.png")),
-                        80
-                );
-            default:
-                // Fallback style if the player ID is unexpected
-                return new WorkerAppearance(
-                        Color.GRAY,
-                        Color.DARK_GRAY,
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/FemaleWorkerBlack.png")),
-                        new ImageIcon(ClassLoader.getSystemResource("assets/workericons/MaleWorkerBlack.png")),
-                        80
-                );
-        }
+        if (playerID < 0 || playerID >= APPEARANCES.length) return DEFAULT_APPEARANCE;
+        return APPEARANCES[playerID];
     }
 }
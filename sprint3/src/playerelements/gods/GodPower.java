@@ -0,0 +1,217 @@
+package playerelements.gods;
+
+import actions.BuildAction;
+import actions.MoveAction;
+import gameengine.GamePhase;
+import pieces.Dome;
+import pieces.PieceRegistry;
+import pieces.Worker;
+
+/**
+ * A god power compiled from its {@link RuleModifier}s into a handful of counts and flags.
+ * Move generators ask it whether a worker may act again and whether an extra action is allowed,
+ * which is a few field reads and comparisons whatever the god, so the number of gods in the
+ * {@link GodRegistry} makes no difference to the cost of generating moves. A player without a
+ * god uses {@link #NONE}, whose hooks always say no, so generators never need a null check.
+ * <p>
+ * The hooks read what the worker has done this turn from {@link Worker#getTurnMoves()} and the
+ * related getters, so they work the same while playing and while exploring turns in place.
+ */
+public final class GodPower {
+
+    // Move restriction flags
+    static final int NOT_BACK_TO_START = 1;
+    static final int NO_CLIMB = 1 << 1;
+
+    // Build restriction flags
+    static final int NOT_SAME_SPACE = 1;
+    static final int SAME_SPACE = 1 << 1;
+    static final int NO_DOME = 1 << 2;
+    static final int UNDER_SELF = 1 << 3;
+
+    /**
+     * The power of a player without a god.
+     */
+    public static final GodPower NONE = new GodPower(0, "None", "");
+
+    /** Id the god is stored under in saved positions, 0 for no god. */
+    public final int id;
+    public final String name;
+    /** Describes the power to the player. */
+    public final String prompt;
+    /** The phase the turn goes back to when the power is used. */
+    public final GamePhase phase;
+    /** Whether the power must be used by the worker that moved. */
+    public final boolean oneWorker;
+
+    private final int extraMoves;
+    private final int extraBuilds;
+    private final int moveRules;
+    private final int buildRules;
+    // Levels a worker must move down to win, 0 if moving down never wins
+    private final int winDrop;
+
+    /**
+     * Compiles a god's rule modifiers.
+     *
+     * @param id        the id the god is stored under
+     * @param name      the god's name
+     * @param prompt    describes the power to the player
+     * @param modifiers the rules the god changes
+     * @throws IllegalArgumentException if the modifiers do not fit together
+     */
+    GodPower(int id, String name, String prompt, RuleModifier... modifiers) {
+        int moves = 0;
+        int builds = 0;
+        int moveFlags = 0;
+        int buildFlags = 0;
+        int drop = 0;
+        for (RuleModifier modifier : modifiers) {
+            switch (modifier.kind) {
+                case EXTRA_MOVE -> moves += modifier.value;
+                case EXTRA_BUILD -> builds += modifier.value;
+                case MOVE_RESTRICTION -> moveFlags |= modifier.value;
+                case BUILD_RESTRICTION -> buildFlags |= modifier.value;
+                case WIN_CONDITION -> drop = drop == 0 ? modifier.value : Math.min(drop, modifier.value);
+            }
+        }
+
+        if (moveFlags != 0 && moves == 0) {
+            throw new IllegalArgumentException(name + " restricts an extra move it does not have");
+        }
+        if ((buildFlags & ~UNDER_SELF) != 0 && builds == 0) {
+            throw new IllegalArgumentException(name + " restricts an extra build it does not have");
+        }
+        if ((buildFlags & NOT_SAME_SPACE) != 0 && (buildFlags & SAME_SPACE) != 0) {
+            throw new IllegalArgumentException(name + " cannot build both on and off the same space");
+        }
+
+        this.id = id;
+        this.name = name;
+        this.prompt = prompt;
+        this.extraMoves = moves;
+        this.extraBuilds = builds;
+        this.moveRules = moveFlags;
+        this.buildRules = buildFlags;
+        this.winDrop = drop;
+        this.phase = moves > 0 ? GamePhase.MOVE : GamePhase.BUILD;
+        this.oneWorker = moves > 0 || builds > 0 || buildFlags != 0;
+    }
+
+    /**
+     * Gets the compiled power of a god.
+     *
+     * @param god the god, or null for none
+     * @return the god's power, {@link #NONE} for no god or a god that is not registered
+     */
+    public static GodPower of(God god) {
+        if (god == null) return NONE;
+        if (god instanceof RegisteredGod) return ((RegisteredGod) god).power;
+        GodPower power = GodRegistry.getPower(god.getName());
+        return power == null ? NONE : power;
+    }
+
+    // ##### Move generation hooks
+
+    /**
+     * Checks whether a move wins, counting any win condition the god adds.
+     *
+     * @param move a legal move
+     * @return true if the move wins the game
+     */
+    public boolean isWin(MoveAction move) {
+        return move.isWinCondition() || (winDrop != 0 && -move.heightDifference >= winDrop);
+    }
+
+    /**
+     * Checks whether a move between two heights wins, for generators that work on cells
+     * instead of actions. Same rules as {@link #isWin(MoveAction)}.
+     *
+     * @param fromHeight the height the worker moves from
+     * @param toHeight   the height the worker moves to, by a legal move
+     * @return true if the move wins the game
+     */
+    public boolean isWin(int fromHeight, int toHeight) {
+        return toHeight >= PieceRegistry.MAX_TOWER_HEIGHT || (winDrop != 0 && fromHeight - toHeight >= winDrop);
+    }
+
+    /**
+     * @param worker the worker that has just moved
+     * @return true if the worker may move again before building
+     */
+    public boolean canMoveAgain(Worker worker) {
+        int moves = worker.getTurnMoves();
+        return moves > 0 && moves <= extraMoves && worker.getTurnBuilds() == 0;
+    }
+
+    /**
+     * Checks a legal move against the restrictions on the god's extra move.
+     *
+     * @param worker the worker moving again
+     * @param move   a legal move for it
+     * @return true if the god allows the move
+     */
+    public boolean allowsExtraMove(Worker worker, MoveAction move) {
+        if ((moveRules & NOT_BACK_TO_START) != 0 && move.getMoveEnd() == worker.getTurnStart()) return false;
+        if ((moveRules & NO_CLIMB) != 0 && move.heightDifference > 0) return false;
+        return true;
+    }
+
+    /**
+     * @param worker the worker that has just built
+     * @return true if the worker may build again
+     */
+    public boolean canBuildAgain(Worker worker) {
+        int builds = worker.getTurnBuilds();
+        return builds > 0 && builds <= extraBuilds;
+    }
+
+    /**
+     * Checks a legal build against the restrictions on the god's extra build.
+     *
+     * @param worker the worker building again
+     * @param build  a legal build for it
+     * @return true if the god allows the build
+     */
+    public boolean allowsExtraBuild(Worker worker, BuildAction build) {
+        if ((buildRules & NOT_SAME_SPACE) != 0 && build.position == worker.getLastBuild()) return false;
+        if ((buildRules & SAME_SPACE) != 0 && build.position != worker.getLastBuild()) return false;
+        if ((buildRules & NO_DOME) != 0 && build.piece instanceof Dome) return false;
+        return true;
+    }
+
+    /**
+     * @param worker the worker that has just moved
+     * @return true if the worker may build its first build under itself
+     */
+    public boolean canBuildUnderSelf(Worker worker) {
+        return (buildRules & UNDER_SELF) != 0 && worker.getTurnMoves() > 0 && worker.getTurnBuilds() == 0
+                && worker.getSpace().getHeight() < PieceRegistry.MAX_TOWER_HEIGHT;
+    }
+
+    /**
+     * Creates the build of a block under a worker, see {@link #canBuildUnderSelf(Worker)}.
+     *
+     * @param worker the worker to build under
+     * @return the build action
+     */
+    public BuildAction createBuildUnderSelf(Worker worker) {
+        return new BuildAction(worker, PieceRegistry.nextPiece(worker.getSpace().getHeight()), worker.getCoordinate());
+    }
+
+    /**
+     * @param worker the worker that has just moved or built
+     * @return true if the god gives the worker another action now
+     */
+    public boolean hasAction(Worker worker) {
+        return canMoveAgain(worker) || canBuildAgain(worker) || canBuildUnderSelf(worker);
+    }
+
+    /**
+     * @return the god's name
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,95 @@
+package playerelements.gods;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every god that can be played, declared as data: a name, a prompt and the
+ * {@link RuleModifier}s that make up the power. Each declaration is compiled into a
+ * {@link GodPower} once, when it is registered. A god's id is its position in the registry,
+ * starting at 1, so existing gods must keep their place for saved positions to stay readable.
+ */
+public class GodRegistry {
+
+    private static final List<GodPower> powers = new ArrayList<>();
+    private static final Map<String, GodPower> byName = new HashMap<>();
+
+    static {
+        register("Artemis", "You can move twice this turn! \nBut not back to the space you started from!",
+                RuleModifier.extraMove(), RuleModifier.notBackToStart());
+        register("Demeter", "You can build twice this turn! \nBut not on the same space!",
+                RuleModifier.extraBuild(), RuleModifier.notSameSpace());
+        register("Zeus", "You can build a block under your worker! \nBut not a dome!",
+                RuleModifier.buildUnderSelf());
+        register("Hephaestus", "You can build again on the same space! \nBut not a dome!",
+                RuleModifier.extraBuild(), RuleModifier.sameSpace(), RuleModifier.noDome());
+        register("Pan", "You also win by moving down two or more levels!",
+                RuleModifier.winByMovingDown(2));
+    }
+
+    /**
+     * Compiles and registers a god. Gods should be registered before any game starts.
+     *
+     * @param name      the god's name
+     * @param prompt    describes the power to the player
+     * @param modifiers the rules the god changes
+     * @return the compiled power
+     * @throws IllegalArgumentException if the name is taken or the modifiers do not fit together
+     */
+    public static synchronized GodPower register(String name, String prompt, RuleModifier... modifiers) {
+        if (byName.containsKey(name)) throw new IllegalArgumentException(name + " is already registered");
+        GodPower power = new GodPower(powers.size() + 1, name, prompt, modifiers);
+        powers.add(power);
+        byName.put(name, power);
+        return power;
+    }
+
+    /**
+     * Creates a god by name.
+     *
+     * @param name the god's name
+     * @return the god, or null if no god has that name
+     */
+    public static God create(String name) {
+        GodPower power = getPower(name);
+        return power == null ? null : new RegisteredGod(power);
+    }
+
+    /**
+     * Creates one of every registered god, in registry order.
+     *
+     * @return the gods
+     */
+    public static synchronized God[] createAll() {
+        God[] gods = new God[powers.size()];
+        for (int i = 0; i < gods.length; i++) {
+            gods[i] = new RegisteredGod(powers.get(i));
+        }
+        return gods;
+    }
+
+    /**
+     * @param name the god's name
+     * @return the god's compiled power, or null if no god has that name
+     */
+    public static synchronized GodPower getPower(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param id the god's id
+     * @return the god's compiled power, or null if no god has that id
+     */
+    public static synchronized GodPower getPower(int id) {
+        return id >= 1 && id <= powers.size() ? powers.get(id - 1) : null;
+    }
+
+    /**
+     * @return the number of registered gods
+     */
+    public static synchronized int size() {
+        return powers.size();
+    }
+}
@@ -0,0 +1,89 @@
+package playerelements.gods;
+
+import actions.Action;
+import actions.BuildAction;
+import actions.InvalidReason;
+import actions.MoveAction;
+import boardengine.Board;
+import gameengine.GamePhase;
+import pieces.Worker;
+
+import java.util.ArrayList;
+
+/**
+ * A god declared in the {@link GodRegistry}, seen through the {@link God} interface the game
+ * controller uses. Everything is answered by the god's compiled {@link GodPower}.
+ */
+class RegisteredGod extends God {
+
+    final GodPower power;
+
+    /**
+     * @param power the compiled power of the god
+     */
+    RegisteredGod(GodPower power) {
+        this.power = power;
+    }
+
+    /**
+     * Generates the god's extra moves or builds. Actions the god does not allow are kept but
+     * marked invalid, so the player can be told why.
+     *
+     * @param worker the worker using the power
+     * @param board  the current game board
+     * @return the extra actions, empty if the power cannot be used now
+     */
+    @Override
+    public ArrayList<Action> generateGodActions(Worker worker, Board board) {
+        ArrayList<Action> actions = new ArrayList<>();
+        if (power.canMoveAgain(worker)) {
+            for (MoveAction move : worker.getMoveActions(board)) {
+                if (!power.allowsExtraMove(worker, move)) move.setAsInvalid(InvalidReason.GOD_POWER_RESTRICTION);
+                actions.add(move);
+            }
+        } else if (power.canBuildAgain(worker)) {
+            for (BuildAction build : worker.getBuildActions(board)) {
+                if (!power.allowsExtraBuild(worker, build)) build.setAsInvalid(InvalidReason.GOD_POWER_RESTRICTION);
+                actions.add(build);
+            }
+        } else if (power.canBuildUnderSelf(worker)) {
+            actions.addAll(worker.getBuildActions(board));
+            actions.add(power.createBuildUnderSelf(worker));
+        }
+        return actions;
+    }
+
+    /**
+     * @param worker the worker that has just moved or built
+     * @return true if the power can be used now
+     */
+    @Override
+    public boolean godCondition(Worker worker) {
+        return power.hasAction(worker);
+    }
+
+    @Override
+    public String getName() {
+        return power.name;
+    }
+
+    @Override
+    public GamePhase getGamePhase() {
+        return power.phase;
+    }
+
+    @Override
+    public boolean restrictToOneWorker() {
+        return power.oneWorker;
+    }
+
+    @Override
+    public String getGodActionsPrompt() {
+        return power.prompt;
+    }
+
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+package playerelements.gods;
+
+/**
+ * One rule a god power changes. A god is declared in the {@link GodRegistry} as a list of
+ * modifiers, for example Artemis is an extra move plus a move restriction, and the list is
+ * compiled into a {@link GodPower}.
+ * <p>
+ * Restrictions apply to the god's extra move or build, except {@link #buildUnderSelf()}, which
+ * adds a choice to the worker's normal build.
+ */
+public final class RuleModifier {
+
+    /**
+     * The kinds of rule a modifier can change.
+     */
+    public enum Kind {
+        EXTRA_MOVE,
+        EXTRA_BUILD,
+        MOVE_RESTRICTION,
+        BUILD_RESTRICTION,
+        WIN_CONDITION,
+    }
+
+    /** What the modifier changes. */
+    public final Kind kind;
+    /** The rule flag set by a restriction or win condition, or the count of an extra action. */
+    public final int value;
+
+    private RuleModifier(Kind kind, int value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    /**
+     * @return the worker may move once more after its first move, before building
+     */
+    public static RuleModifier extraMove() {
+        return new RuleModifier(Kind.EXTRA_MOVE, 1);
+    }
+
+    /**
+     * @return the worker may build once more after its first build
+     */
+    public static RuleModifier extraBuild() {
+        return new RuleModifier(Kind.EXTRA_BUILD, 1);
+    }
+
+    /**
+     * @return the extra move may not return to the space the worker started the turn on
+     */
+    public static RuleModifier notBackToStart() {
+        return new RuleModifier(Kind.MOVE_RESTRICTION, GodPower.NOT_BACK_TO_START);
+    }
+
+    /**
+     * @return the extra move may not climb
+     */
+    public static RuleModifier noClimb() {
+        return new RuleModifier(Kind.MOVE_RESTRICTION, GodPower.NO_CLIMB);
+    }
+
+    /**
+     * @return the extra build may not be on the space just built on
+     */
+    public static RuleModifier notSameSpace() {
+        return new RuleModifier(Kind.BUILD_RESTRICTION, GodPower.NOT_SAME_SPACE);
+    }
+
+    /**
+     * @return the extra build must be on the space just built on
+     */
+    public static RuleModifier sameSpace() {
+        return new RuleModifier(Kind.BUILD_RESTRICTION, GodPower.SAME_SPACE);
+    }
+
+    /**
+     * @return the extra build may not be a dome
+     */
+    public static RuleModifier noDome() {
+        return new RuleModifier(Kind.BUILD_RESTRICTION, GodPower.NO_DOME);
+    }
+
+    /**
+     * @return the worker may build a block, but not a dome, under itself
+     */
+    public static RuleModifier buildUnderSelf() {
+        return new RuleModifier(Kind.BUILD_RESTRICTION, GodPower.UNDER_SELF);
+    }
+
+    /**
+     * @param levels how many levels the worker must move down
+     * @return the player also wins by moving down at least that many levels
+     */
+    public static RuleModifier winByMovingDown(int levels) {
+        if (levels < 1) throw new IllegalArgumentException("A worker must move down at least one level to win");
+        return new RuleModifier(Kind.WIN_CONDITION, levels);
+    }
+}